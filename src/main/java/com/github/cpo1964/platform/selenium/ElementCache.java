@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.platform.selenium;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+/**
+ * The Class ElementCache.
+ * <p>
+ * The elements located on the current page of a session, keyed by locator and
+ * switched on by the system property 'element.cache=true' or
+ * {@link #setEnabled(boolean)}. A cached element is handed to the
+ * {@link WaitEngine} for waits on a state, so the state check, which is done
+ * anyway, also detects a stale element and the lookup is saved on a hit.
+ * <p>
+ * The cache is cleared on navigation, frame switches and a new driver. A stale
+ * element means the DOM was rebuilt, so it clears the whole cache as well. An
+ * element that is still attached while its locator now matches another one
+ * is not detected, so locators by position in changing lists should not be
+ * used with the cache.
+ */
+public final class ElementCache {
+
+	/** The max entries. */
+	private static final int MAX_ENTRIES = Integer.getInteger("element.cache.maxEntries", 256);
+
+	/** The enabled flag. */
+	private static volatile boolean enabled = Boolean.getBoolean("element.cache");
+
+	/** The hits of all sessions. */
+	private static final LongAdder totalHits = new LongAdder();
+
+	/** The misses of all sessions. */
+	private static final LongAdder totalMisses = new LongAdder();
+
+	/** The stale elements of all sessions. */
+	private static final LongAdder totalStale = new LongAdder();
+
+	/** The elements in access order. */
+	private final LinkedHashMap<By, WebElement> elements = new LinkedHashMap<By, WebElement>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<By, WebElement> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/** The hits. */
+	private long hits;
+
+	/** The misses. */
+	private long misses;
+
+	/** The stale elements. */
+	private long stale;
+
+	/** The invalidations. */
+	private long invalidations;
+
+	/**
+	 * Checks if the cache is enabled.
+	 *
+	 * @return true, if enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Switches the cache on or off for all sessions.
+	 *
+	 * @param on true to switch on
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/**
+	 * Gets the statistics of all sessions.
+	 *
+	 * @return the statistics
+	 */
+	public static String getTotalStats() {
+		long h = totalHits.sum();
+		long m = totalMisses.sum();
+		return "ElementCache[hits=" + h + ", misses=" + m + ", stale=" + totalStale.sum() + ", hitRate="
+				+ percent(h, h + m) + "%]";
+	}
+
+	/**
+	 * Gets a cached element.
+	 *
+	 * @param locator the locator
+	 * @return the element or null
+	 */
+	public synchronized WebElement get(By locator) {
+		WebElement el = elements.get(locator);
+		if (el != null) {
+			hits++;
+			totalHits.increment();
+		} else {
+			misses++;
+			totalMisses.increment();
+		}
+		return el;
+	}
+
+	/**
+	 * Puts a located element.
+	 *
+	 * @param locator the locator
+	 * @param el      the element
+	 */
+	public synchronized void put(By locator, WebElement el) {
+		if (el != null) {
+			elements.put(locator, el);
+		}
+	}
+
+	/**
+	 * Records a stale element and clears the cache.
+	 *
+	 * @param locator the locator
+	 */
+	public synchronized void stale(By locator) {
+		if (elements.containsKey(locator)) {
+			stale++;
+			totalStale.increment();
+		}
+		invalidate();
+	}
+
+	/**
+	 * Clears the cache, when the page, the frame or the driver changed.
+	 */
+	public synchronized void invalidate() {
+		if (!elements.isEmpty()) {
+			elements.clear();
+			invalidations++;
+		}
+	}
+
+	/**
+	 * Gets the hits, including the ones found stale.
+	 *
+	 * @return the hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the misses.
+	 *
+	 * @return the misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the stale elements.
+	 *
+	 * @return the stale elements
+	 */
+	public synchronized long getStale() {
+		return stale;
+	}
+
+	/**
+	 * Gets the hit rate.
+	 *
+	 * @return the hit rate in percent
+	 */
+	public synchronized long getHitRate() {
+		return percent(hits, hits + misses);
+	}
+
+	/**
+	 * Computes a percentage.
+	 *
+	 * @param part  the part
+	 * @param total the total
+	 * @return the percentage, 0 for an empty total
+	 */
+	private static long percent(long part, long total) {
+		return total == 0 ? 0 : part * 100 / total;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ElementCache[entries=" + elements.size() + ", hits=" + hits + ", misses=" + misses + ", stale="
+				+ stale + ", invalidations=" + invalidations + ", hitRate=" + getHitRate() + "%]";
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.platform.selenium;
+
+import java.util.Map;
+
+/**
+ * The Class ElementSnapshot.
+ * <p>
+ * The state of an element at the time of a {@link SeleniumHelper#queryAll}
+ * call. The text is the textContent, as delivered by output().
+ */
+public final class ElementSnapshot {
+
+	/** The snapshot of an element not found. */
+	static final ElementSnapshot NOT_FOUND = new ElementSnapshot(false, null, null, null, false, false, false);
+
+	/** The found flag. */
+	private final boolean found;
+
+	/** The tag name. */
+	private final String tagName;
+
+	/** The text. */
+	private final String text;
+
+	/** The value. */
+	private final String value;
+
+	/** The displayed flag. */
+	private final boolean displayed;
+
+	/** The enabled flag. */
+	private final boolean enabled;
+
+	/** The selected flag. */
+	private final boolean selected;
+
+	/**
+	 * Instantiates a new element snapshot.
+	 *
+	 * @param found     the found flag
+	 * @param tagName   the tag name
+	 * @param text      the text
+	 * @param value     the value
+	 * @param displayed the displayed flag
+	 * @param enabled   the enabled flag
+	 * @param selected  the selected flag
+	 */
+	ElementSnapshot(boolean found, String tagName, String text, String value, boolean displayed, boolean enabled,
+			boolean selected) {
+		this.found = found;
+		this.tagName = tagName;
+		this.text = text;
+		this.value = value;
+		this.displayed = displayed;
+		this.enabled = enabled;
+		this.selected = selected;
+	}
+
+	/**
+	 * Creates a snapshot from the answer of the query script.
+	 *
+	 * @param map the map or null, if not found
+	 * @return the element snapshot
+	 */
+	static ElementSnapshot of(Map<?, ?> map) {
+		if (map == null) {
+			return NOT_FOUND;
+		}
+		return new ElementSnapshot(true, (String) map.get("tag"), (String) map.get("text"),
+				(String) map.get("value"), Boolean.TRUE.equals(map.get("displayed")),
+				Boolean.TRUE.equals(map.get("enabled")), Boolean.TRUE.equals(map.get("selected")));
+	}
+
+	/**
+	 * Checks if the element was found.
+	 *
+	 * @return true, if found
+	 */
+	public boolean isFound() {
+		return found;
+	}
+
+	/**
+	 * Gets the tag name.
+	 *
+	 * @return the tag name in lower case
+	 */
+	public String getTagName() {
+		return tagName;
+	}
+
+	/**
+	 * Gets the text.
+	 *
+	 * @return the text content
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Gets the value of an input, select or textarea.
+	 *
+	 * @return the value or null
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * Checks if is displayed.
+	 *
+	 * @return true, if is displayed
+	 */
+	public boolean isDisplayed() {
+		return displayed;
+	}
+
+	/**
+	 * Checks if is enabled.
+	 *
+	 * @return true, if is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Checks if is selected (checked checkbox or radio button, selected option).
+	 *
+	 * @return true, if is selected
+	 */
+	public boolean isSelected() {
+		return selected;
+	}
+
+	@Override
+	public String toString() {
+		if (!found) {
+			return "ElementSnapshot[not found]";
+		}
+		return "ElementSnapshot[tag=" + tagName + ", text=" + text + ", value=" + value + ", displayed=" + displayed
+				+ ", enabled=" + enabled + ", selected=" + selected + "]";
+	}
+}
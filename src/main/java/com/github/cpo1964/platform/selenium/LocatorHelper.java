@@ -3,11 +3,9 @@ package com.github.cpo1964.platform.selenium;
 import java.io.File;
 import java.util.logging.Logger;
 
+import org.openqa.selenium.By;
 import org.openqa.selenium.NotFoundException;
 
-import com.github.cpo1964.report.extent.ExtentHelper;
-import com.github.cpo1964.utils.CommonHelper;
-
 public class LocatorHelper {
 
 	/**
@@ -163,18 +161,34 @@ public class LocatorHelper {
 		}
 		String cn = locatorDelegateSplit[0];
 		String key = locatorDelegateSplit[2];
-		Class<?> c = ExtentHelper.getClassByQualifiedName(cn);
-		if (c == null) {
-			throw new NotFoundException("class not found: " + cn);
-		}
 		// expected: a xpath from the property file
-		String locator = CommonHelper.getClassPropertyValueByKey(c, key);
-		log.finest("Found value '" + (!key.equals("password") ? locator : "*****") + "' by key '" + key
+		String locator = LocatorRegistry.getXpath(cn, key);
+		log.finest(() -> "Found value '" + (!key.equals("password") ? locator : "*****") + "' by key '" + key
 				+ "' from file '" + cn + ".properties'");
 		return locator;
 	}
 
-	private static boolean isXpath(String locatorDelegate) {
+	/**
+	 * Gets the (cached) xpath.
+	 *
+	 * @param locatorDelegate the locator delegate
+	 * @return the xpath
+	 */
+	static String getXpath(String locatorDelegate) {
+		return LocatorRegistry.getXpath(locatorDelegate);
+	}
+
+	/**
+	 * Gets the compiled locator.
+	 *
+	 * @param locatorDelegate the locator delegate
+	 * @return the locator
+	 */
+	static By getBy(String locatorDelegate) {
+		return LocatorRegistry.getBy(locatorDelegate);
+	}
+
+	static boolean isXpath(String locatorDelegate) {
 		return locatorDelegate.startsWith("//") || locatorDelegate.startsWith("(//");
 	}
 
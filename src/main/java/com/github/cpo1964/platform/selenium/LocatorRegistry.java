@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.platform.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NotFoundException;
+
+import com.github.cpo1964.report.extent.ExtentHelper;
+import com.github.cpo1964.utils.CommonHelper;
+
+/**
+ * The Class LocatorRegistry.
+ * <p>
+ * Process wide cache for the locators of the page objects. Every page
+ * properties file is loaded once and every resolved locator delegate
+ * ('classname:TYPE:key') is kept as xpath and as compiled {@link By}.
+ * <p>
+ * With the system property 'locatorWatch=true' the directories of the loaded
+ * properties files are watched and changed files are reloaded on next access.
+ */
+public class LocatorRegistry {
+
+	/** The Constant WATCH_PROPERTY. */
+	public static final String WATCH_PROPERTY = "locatorWatch";
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(LocatorRegistry.class.getSimpleName());
+
+	/** The loaded page properties by class name. */
+	private static final Map<String, Properties> PAGES = new ConcurrentHashMap<>();
+
+	/** The watched properties files by class name. */
+	private static final Map<String, Path> PAGE_FILES = new ConcurrentHashMap<>();
+
+	/** The resolved xpaths by locator delegate. */
+	private static final Map<String, String> XPATHS = new ConcurrentHashMap<>();
+
+	/** The resolved locators by locator delegate. */
+	private static final Map<String, By> LOCATORS = new ConcurrentHashMap<>();
+
+	/** The hits. */
+	private static final LongAdder hits = new LongAdder();
+
+	/** The misses. */
+	private static final LongAdder misses = new LongAdder();
+
+	/** The watch service, only created in watch mode. */
+	private static WatchService watchService;
+
+	/**
+	 * Instantiates a new locator registry.
+	 */
+	private LocatorRegistry() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Gets the compiled locator of a locator delegate.
+	 *
+	 * @param locatorDelegate the locator delegate or a plain xpath
+	 * @return the locator
+	 */
+	public static By getBy(String locatorDelegate) {
+		if (LocatorHelper.isXpath(locatorDelegate)) {
+			// plain (often generated) xpaths are not cached
+			return By.xpath(locatorDelegate);
+		}
+		By by = LOCATORS.get(locatorDelegate);
+		if (by != null) {
+			hits.increment();
+			return by;
+		}
+		// counted by getXpath
+		return LOCATORS.computeIfAbsent(locatorDelegate, d -> By.xpath(getXpath(d)));
+	}
+
+	/**
+	 * Gets the xpath of a locator delegate.
+	 *
+	 * @param locatorDelegate the locator delegate or a plain xpath
+	 * @return the xpath
+	 */
+	public static String getXpath(String locatorDelegate) {
+		if (LocatorHelper.isXpath(locatorDelegate)) {
+			return locatorDelegate;
+		}
+		String xpath = XPATHS.get(locatorDelegate);
+		if (xpath != null) {
+			hits.increment();
+			return xpath;
+		}
+		misses.increment();
+		return XPATHS.computeIfAbsent(locatorDelegate, LocatorHelper::getLocator);
+	}
+
+	/**
+	 * Gets the xpath of a locator delegate from the (cached) page properties.
+	 *
+	 * @param cn  the qualified class name of the page
+	 * @param key the key
+	 * @return the xpath
+	 */
+	static String getXpath(String cn, String key) {
+		Properties props = PAGES.computeIfAbsent(cn, LocatorRegistry::loadPage);
+		return CommonHelper.getPropertyValueByKey(props, key, cn + ".properties");
+	}
+
+	/**
+	 * Loads the properties file of a page.
+	 *
+	 * @param cn the qualified class name of the page
+	 * @return the properties
+	 */
+	private static Properties loadPage(String cn) {
+		Class<?> c = ExtentHelper.getClassByQualifiedName(cn);
+		if (c == null) {
+			throw new NotFoundException("class not found: " + cn);
+		}
+		Properties props = CommonHelper.getClassProperties(c);
+		if (CommonHelper.isTrue(System.getProperty(WATCH_PROPERTY))) {
+			watch(cn, CommonHelper.getClassPropertiesUrl(c));
+		}
+		return props;
+	}
+
+	/**
+	 * Registers the directory of a properties file at the watch service.
+	 *
+	 * @param cn  the qualified class name of the page
+	 * @param url the url of the properties file
+	 */
+	private static synchronized void watch(String cn, URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			log.fine(() -> "can not watch " + url + " - not a file");
+			return;
+		}
+		try {
+			Path file = Paths.get(url.toURI());
+			if (watchService == null) {
+				watchService = FileSystems.getDefault().newWatchService();
+				Thread watcher = new Thread(LocatorRegistry::processEvents, "locator-watch");
+				watcher.setDaemon(true);
+				watcher.start();
+			}
+			file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			PAGE_FILES.put(cn, file);
+		} catch (IOException | URISyntaxException e) {
+			log.warning(() -> "can not watch " + url + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Invalidates the pages whose properties file has changed.
+	 */
+	private static void processEvents() {
+		while (true) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ClosedWatchServiceException e) {
+				return;
+			}
+			Path dir = (Path) key.watchable();
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.context() instanceof Path) {
+					Path changed = dir.resolve((Path) event.context());
+					PAGE_FILES.forEach((cn, file) -> {
+						if (file.equals(changed)) {
+							log.info(() -> "locators changed: " + changed);
+							invalidate(cn);
+						}
+					});
+				}
+			}
+			key.reset();
+		}
+	}
+
+	/**
+	 * Invalidates the properties and all resolved locators of a page.
+	 *
+	 * @param cn the qualified class name of the page
+	 */
+	public static void invalidate(String cn) {
+		PAGES.remove(cn);
+		String prefix = cn + File.pathSeparator;
+		XPATHS.keySet().removeIf(d -> d.startsWith(prefix));
+		LOCATORS.keySet().removeIf(d -> d.startsWith(prefix));
+	}
+
+	/**
+	 * Clears the registry.
+	 */
+	public static void clear() {
+		PAGES.clear();
+		PAGE_FILES.clear();
+		XPATHS.clear();
+		LOCATORS.clear();
+		hits.reset();
+		misses.reset();
+	}
+
+	/**
+	 * Gets the hits.
+	 *
+	 * @return the hits
+	 */
+	public static long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the misses.
+	 *
+	 * @return the misses
+	 */
+	public static long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the number of cached locators.
+	 *
+	 * @return the size
+	 */
+	public static int size() {
+		return XPATHS.size();
+	}
+}
@@ -14,13 +14,15 @@ package com.github.cpo1964.platform.selenium;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.Duration;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import org.openqa.selenium.By;
@@ -33,16 +35,21 @@ import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.remote.RemoteWebDriver;
-import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.Quotes;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import com.github.cpo1964.report.ReportInterface;
 import com.github.cpo1964.report.extent.ExtentHelper;
+import com.github.cpo1964.report.extent.ScreenshotWriter;
+import com.github.cpo1964.utils.ActionMetrics;
+import com.github.cpo1964.utils.ActionMetrics.Action;
+import com.github.cpo1964.utils.ActionMetrics.Phase;
 import com.github.cpo1964.utils.BrowserHelper;
+import com.github.cpo1964.utils.BrowserPool;
 import com.github.cpo1964.utils.CommonHelper;
-import com.github.cpo1964.utils.ExcelHelper;
 import com.github.cpo1964.utils.MaxlevelStreamHandler;
+import com.github.cpo1964.utils.TestdataCache;
 
 /**
  * The Class SeleniumHelper provides concrete implementations for browser
@@ -87,10 +94,6 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
 
     /** Internal state variables. */
     protected static String value;
-    /** The active RemoteWebDriver instance. */
-    private static RemoteWebDriver driver;
-    /** The current or last interacted WebElement. */
-    private static WebElement webElement;
     /** Path to the test data directory. */
     private String testDataPath;
     /** Proxy server address. */
@@ -99,21 +102,71 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
     private static String proxyUser;
     /** Password for proxy authentication. */
     private static String proxyPass;
-    /** Flag indicating if the driver has been successfully initialized. */
-    private static boolean driverLoaded = false;
     /** Success status flag for operations. */
     protected boolean ok;
+    /** Flag indicating if orphaned driver processes have been cleaned up. */
+    private static final AtomicBoolean driversCleaned = new AtomicBoolean(false);
+    /** The script of queryAll, answers a map or null per xpath. */
+    private static final String QUERY_SCRIPT = String.join("\n",
+            "return arguments[0].map(function(xpath) {",
+            "  var e = document.evaluate(xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null)"
+                    + ".singleNodeValue;",
+            "  if (!e) { return null; }",
+            "  var s = e.nodeType === 1 ? window.getComputedStyle(e) : null;",
+            "  var r = e.getBoundingClientRect ? e.getBoundingClientRect() : { width: 0, height: 0 };",
+            "  var displayed = !!s && s.display !== 'none' && s.visibility === 'visible' && s.opacity !== '0'",
+            "      && r.width > 0 && r.height > 0;",
+            "  var selected = e.type === 'checkbox' || e.type === 'radio' ? e.checked : !!e.selected;",
+            "  return { tag: (e.tagName || '').toLowerCase(), text: e.textContent,",
+            "      value: 'value' in e && e.value != null ? String(e.value) : null,",
+            "      displayed: displayed, enabled: !e.disabled, selected: selected };",
+            "});");
+    /** The script of inputAll, answers the element or null per xpath. */
+    private static final String RESOLVE_SCRIPT = String.join("\n",
+            "return arguments[0].map(function(xpath) {",
+            "  return document.evaluate(xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null)"
+                    + ".singleNodeValue;",
+            "});");
+    /** The script of inputAll by script, answers an error message or null per field. */
+    private static final String FILL_SCRIPT = String.join("\n",
+            "var types = arguments[1], values = arguments[2];",
+            "function fire(e, name) { e.dispatchEvent(new Event(name, { bubbles: true })); }",
+            "return arguments[0].map(function(xpath, i) {",
+            "  var e = document.evaluate(xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null)"
+                    + ".singleNodeValue;",
+            "  var v = values[i];",
+            "  if (!e) { return 'Element not found: ' + xpath; }",
+            "  if (e.disabled) { return 'Element not enabled: ' + xpath; }",
+            "  if (types[i] === 'LISTBOX') {",
+            "    var index = -1;",
+            "    for (var j = 0; j < e.options.length && index < 0; j++) {",
+            "      if (e.options[j].text.replace(/\\s+/g, ' ').trim() === v.replace(/\\s+/g, ' ').trim()) { index = j; }",
+            "    }",
+            "    if (index < 0) { return 'Cannot locate option with text: ' + v; }",
+            "    e.selectedIndex = index;",
+            "  } else if (types[i] === 'CHECKBOX' || types[i] === 'RADIOBUTTON') {",
+            "    if (e.checked !== (v === 'true')) { e.click(); }",
+            "    return null;",
+            "  } else {",
+            "    var proto = e instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype",
+            "        : e instanceof HTMLInputElement ? HTMLInputElement.prototype : null;",
+            "    var setter = proto ? Object.getOwnPropertyDescriptor(proto, 'value').set : null;",
+            "    if (setter) { setter.call(e, v); } else { e.value = v; }",
+            "    fire(e, 'input');",
+            "  }",
+            "  fire(e, 'change');",
+            "  return null;",
+            "});");
+
     /** Default timeout for implicit waits in seconds. */
     private long timeout = 30;
-    /** Counter for current test iteration. */
-    private static int iteration = 0;
 
     /**
      * Gets the current iteration.
      * @return the iteration
      */
     public static int getIteration() {
-        return iteration;
+        return SessionContext.current().getIteration();
     }
 
     /**
@@ -121,7 +174,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      * @param value the iteration value
      */
     public static void setIteration(int value) {
-        iteration = value;
+        SessionContext.current().setIteration(value);
     }
 
     /**
@@ -129,7 +182,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      * @return the driver
      */
     public static RemoteWebDriver getDriver() {
-        return driver;
+        return SessionContext.current().getDriver();
     }
 
     /**
@@ -137,11 +190,15 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     public static void setDriver() {
         String browser = getBrowser();
-        if (SeleniumStrings.CHROME.equalsIgnoreCase(browser)) {
+        RemoteWebDriver driver = null;
+        if (BrowserPool.isEnabled()) {
+            driver = BrowserPool.get(browser).borrow();
+        } else if (SeleniumStrings.CHROME.equalsIgnoreCase(browser)) {
             driver = BrowserHelper.getChromeDriver();
         } else if (SeleniumStrings.FIREFOX.equalsIgnoreCase(browser)) {
             driver = BrowserHelper.getFirefoxDriver();
         }
+        SessionContext.current().setDriver(driver);
         if (driver != null) {
             log.info(() -> "Driver initialized for browser: " + browser);
             setDriverLoaded(true);
@@ -153,7 +210,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      * @return the web element
      */
     public static WebElement getWebElement() {
-        return webElement;
+        return SessionContext.current().getWebElement();
     }
 
     /**
@@ -161,7 +218,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      * @param webEl the web element
      */
     public static void setWebElement(WebElement webEl) {
-        webElement = webEl;
+        SessionContext.current().setWebElement(webEl);
     }
 
     /**
@@ -185,7 +242,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      * @return true if NOT loaded
      */
     public static boolean isDriverLoaded() {
-        return !driverLoaded;
+        return !SessionContext.current().isDriverLoaded();
     }
 
     /**
@@ -193,7 +250,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      * @param driverLoaded the state
      */
     public static void setDriverLoaded(boolean driverLoaded) {
-        SeleniumHelper.driverLoaded = driverLoaded;
+        SessionContext.current().setDriverLoaded(driverLoaded);
     }
 
     /**
@@ -211,7 +268,13 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     @Override
     public void navigateTo(String url) {
-        getDriver().get(url);
+        boolean started = ActionMetrics.begin(Action.NAVIGATE, url);
+        try {
+            SessionContext.current().getElementCache().invalidate();
+            getDriver().get(url);
+        } finally {
+            ActionMetrics.end(started);
+        }
     }
 
     /**
@@ -271,6 +334,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
     public boolean driverSwitchToIFrame(String name) {
         List<WebElement> iframes = getDriver().findElements(By.tagName("iframe"));
         if (!iframes.isEmpty()) {
+            SessionContext.current().getElementCache().invalidate();
             getDriver().switchTo().frame(name);
             return true;
         }
@@ -282,6 +346,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     @Override
     public void driverSwitchToDefaultContent() {
+        SessionContext.current().getElementCache().invalidate();
         getDriver().switchTo().defaultContent();
     }
 
@@ -306,10 +371,15 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
     /**
      * Launches the browser environment.
      * Performs cleanup, configures logs, sets proxy settings, and maximizes the window.
+     * Orphaned driver processes are only cleaned up by the first launch of the JVM,
+     * so parallel sessions do not kill each other's drivers. With the browser pool
+     * enabled no driver processes are killed at all.
      */
     @Override
     public void launch() {
-        BrowserHelper.cleanDriver();
+        if (!BrowserPool.isEnabled() && driversCleaned.compareAndSet(false, true)) {
+            BrowserHelper.cleanDriver();
+        }
         MaxlevelStreamHandler.setupMaxLevelStreamHandler(log);
         String cachePath = Paths.get("").toAbsolutePath().toString() + File.separator + "src" + File.separator + "test"
                 + File.separator + "resources";
@@ -326,11 +396,15 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
 
     /**
      * Closes the browser and quits the WebDriver session.
+     * With the browser pool enabled the session is reset and given back to the pool.
      */
     @Override
     public void closeBrowser() {
         try {
-            if (getDriver() != null)
+            if (getDriver() != null && BrowserPool.isEnabled()) {
+                BrowserPool.get(getBrowser()).release(getDriver());
+                SessionContext.current().setDriver(null);
+            } else if (getDriver() != null)
                 getDriver().quit();
         } catch (Exception e) {
             log.warning(e.getMessage());
@@ -381,10 +455,13 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     @Override
     public void click(String locatorDelegate, String clickAction) {
+        boolean started = ActionMetrics.begin(Action.CLICK, locatorDelegate);
         try {
-            clickByXpath(LocatorHelper.getLocator(locatorDelegate), clickAction);
+            clickByXpath(LocatorHelper.getXpath(locatorDelegate), clickAction);
         } catch (NotFoundException e) {
             reportStepFail(e.getMessage());
+        } finally {
+            ActionMetrics.end(started);
         }
     }
 
@@ -439,11 +516,14 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
     @Override
     public void input(String locatorDelegate, String value, boolean secret) {
         String[] descParts = locatorDelegate.split(File.pathSeparator);
+        boolean started = ActionMetrics.begin(Action.INPUT, locatorDelegate);
         try {
-            inputByXpath(LocatorHelper.getLocator(locatorDelegate), WebelementType.valueOf(descParts[1]), value,
+            inputByXpath(LocatorHelper.getXpath(locatorDelegate), WebelementType.valueOf(descParts[1]), value,
                     secret);
         } catch (Exception e) {
             reportStepFail(e.getMessage());
+        } finally {
+            ActionMetrics.end(started);
         }
     }
 
@@ -475,10 +555,130 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      * @param secret whether to mask the value in reports
      */
     public void input(String locatorDelegate, WebelementType type, String value, boolean secret) {
+        boolean started = ActionMetrics.begin(Action.INPUT, locatorDelegate);
         try {
-            inputByXpath(LocatorHelper.getLocator(locatorDelegate), type, value, secret);
+            inputByXpath(LocatorHelper.getXpath(locatorDelegate), type, value, secret);
         } catch (Exception e) {
             reportStepFail(e.getMessage());
+        } finally {
+            ActionMetrics.end(started);
+        }
+    }
+
+    /**
+     * Fills several fields with one wait and one report step. The locator strings
+     * must carry the type (EDITFIELD, NUMERICFIELD, LISTBOX, CHECKBOX or
+     * RADIOBUTTON), values of fields named like 'password' are masked.
+     * @param values the values by locator string, filled in the given order
+     */
+    public void inputAll(Map<String, String> values) {
+        inputAll(values, false);
+    }
+
+    /**
+     * Fills several fields with one wait and one report step, optionally by a
+     * single script call. The script sets the values directly and dispatches the
+     * input and change events, checkboxes and radio buttons are clicked; this
+     * skips the key events of sendKeys.
+     * @param values the values by locator string, filled in the given order
+     * @param viaScript true to fill all fields by one script call
+     */
+    public void inputAll(Map<String, String> values, boolean viaScript) {
+        if (isFailed() || values.isEmpty())
+            return;
+        int size = values.size();
+        List<String> xpaths = new ArrayList<>(size);
+        List<String> types = new ArrayList<>(size);
+        List<String> fieldValues = new ArrayList<>(size);
+        StringBuilder msg = new StringBuilder("<b>INPUT   </b> " + size + " fields");
+        boolean started = ActionMetrics.begin(Action.INPUT, null);
+        try {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                String[] descParts = entry.getKey().split(File.pathSeparator);
+                WebelementType type = WebelementType.valueOf(descParts[1]);
+                if (!isBatchInputType(type)) {
+                    throw new IllegalArgumentException("Type not supported by inputAll: " + entry.getKey());
+                }
+                String xpath = LocatorHelper.getXpath(entry.getKey());
+                String fieldValue = entry.getValue() == null ? "" : entry.getValue();
+                if (WebelementType.CHECKBOX.equals(type) || WebelementType.RADIOBUTTON.equals(type)) {
+                    fieldValue = String.valueOf(CommonHelper.isTrue(fieldValue));
+                }
+                boolean secret = descParts[descParts.length - 1].toLowerCase().contains("password");
+                xpaths.add(xpath);
+                types.add(type.name());
+                fieldValues.add(fieldValue);
+                msg.append("<br>$(\"").append(xpath).append("\"): '")
+                        .append(CommonHelper.getSecretString(fieldValue, secret)).append("'");
+            }
+            setInputsCount(getInputsCount() + size);
+            if (!waitOnBy(By.xpath(xpaths.get(0)), WebelementState.Enabled)) {
+                reportStepFailScreenshot();
+                throw new NotFoundException("Element not found: " + xpaths.get(0));
+            }
+            JavascriptExecutor js = (JavascriptExecutor) getDriver();
+            if (viaScript) {
+                Object answer = js.executeScript(FILL_SCRIPT, xpaths, types, fieldValues);
+                for (Object error : answer instanceof List ? (List<?>) answer : Collections.emptyList()) {
+                    if (error != null) {
+                        reportStepFailScreenshot();
+                        throw new WebDriverException(String.valueOf(error));
+                    }
+                }
+            } else {
+                Object answer = js.executeScript(RESOLVE_SCRIPT, xpaths);
+                List<?> elements = answer instanceof List ? (List<?>) answer : Collections.emptyList();
+                for (int i = 0; i < size; i++) {
+                    Object el = i < elements.size() ? elements.get(i) : null;
+                    if (!(el instanceof WebElement)) {
+                        reportStepFailScreenshot();
+                        throw new NotFoundException("Element not found: " + xpaths.get(i));
+                    }
+                    fill((WebElement) el, WebelementType.valueOf(types.get(i)), fieldValues.get(i));
+                }
+            }
+            reportStepPass(msg.toString());
+        } catch (Exception e) {
+            reportStepFail(e.getMessage());
+        } finally {
+            ActionMetrics.end(started);
+        }
+    }
+
+    /**
+     * Checks if a type is supported by inputAll.
+     * @param type the element type
+     * @return true, if supported
+     */
+    private static boolean isBatchInputType(WebelementType type) {
+        switch (type) {
+        case EDITFIELD:
+        case NUMERICFIELD:
+        case LISTBOX:
+        case CHECKBOX:
+        case RADIOBUTTON:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Fills a resolved element with as few driver commands as possible.
+     * @param el the element
+     * @param type the element type
+     * @param value the value, 'true' or 'false' for checkboxes and radio buttons
+     */
+    private static void fill(WebElement el, WebelementType type, String value) {
+        if (WebelementType.LISTBOX.equals(type)) {
+            el.findElement(By.xpath(".//option[normalize-space(.) = " + Quotes.escape(value.trim()) + "]")).click();
+        } else if (WebelementType.CHECKBOX.equals(type) || WebelementType.RADIOBUTTON.equals(type)) {
+            if (el.isSelected() != Boolean.parseBoolean(value)) {
+                el.click();
+            }
+        } else {
+            el.clear();
+            el.sendKeys(value);
         }
     }
 
@@ -491,11 +691,13 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
     public String output(String locatorDelegate) {
         if (isFailed())
             return "";
-        String xpath = LocatorHelper.getLocator(locatorDelegate);
+        String xpath = LocatorHelper.getXpath(locatorDelegate);
         setOutputsCount(getOutputsCount() + 1);
+        boolean started = ActionMetrics.begin(Action.OUTPUT, locatorDelegate);
         try {
-            WebElement el = new WebDriverWait(getDriver(), Duration.ofSeconds(timeout))
-                    .until(ExpectedConditions.presenceOfElementLocated(By.xpath(xpath)));
+            WebElement el = await(By.xpath(xpath), null, timeout).getElement();
+            if (el == null)
+                throw new NoSuchElementException("Element not found: " + xpath);
             setWebElement(el);
             String text = el.getAttribute("textContent");
             reportStepPass("<b>OUTPUT   </b> by xpath $(\"" + xpath + "\")<br>text: '" + text + "'");
@@ -503,6 +705,40 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
         } catch (Exception e) {
             reportStepFailScreenshot();
             return "";
+        } finally {
+            ActionMetrics.end(started);
+        }
+    }
+
+    /**
+     * Queries the state of several elements with one script call instead of
+     * several driver commands per element. Displayed is computed in the browser
+     * (display, visibility, opacity and size), which may differ from
+     * WebElement.isDisplayed() in edge cases.
+     * @param locatorDelegates the locator strings
+     * @return the snapshots by locator string, in the given order
+     */
+    public Map<String, ElementSnapshot> queryAll(List<String> locatorDelegates) {
+        boolean started = ActionMetrics.begin(Action.QUERY, null);
+        try {
+            Map<String, ElementSnapshot> snapshots = new LinkedHashMap<>();
+            if (isFailed() || locatorDelegates.isEmpty())
+                return snapshots;
+            List<String> xpaths = new ArrayList<>(locatorDelegates.size());
+            for (String locatorDelegate : locatorDelegates) {
+                xpaths.add(LocatorHelper.getXpath(locatorDelegate));
+            }
+            setOutputsCount(getOutputsCount() + 1);
+            Object answer = ((JavascriptExecutor) getDriver()).executeScript(QUERY_SCRIPT, xpaths);
+            List<?> results = answer instanceof List ? (List<?>) answer : Collections.emptyList();
+            for (int i = 0; i < locatorDelegates.size(); i++) {
+                Object result = i < results.size() ? results.get(i) : null;
+                snapshots.put(locatorDelegates.get(i),
+                        ElementSnapshot.of(result instanceof Map ? (Map<?, ?>) result : null));
+            }
+            return snapshots;
+        } finally {
+            ActionMetrics.end(started);
         }
     }
 
@@ -514,13 +750,18 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     @Override
     public boolean validate(boolean condition, String description) {
-        if (condition)
-            reportStepPass("<b>VALIDATE</b> '" + description + "' - SUCCESS");
-        else {
-            reportStepFail("<b>VALIDATE</b> '" + description + "' - FAILED");
-            reportStepFailScreenshot();
+        boolean started = ActionMetrics.begin(Action.VALIDATE, null);
+        try {
+            if (condition)
+                reportStepPass("<b>VALIDATE</b> '" + description + "' - SUCCESS");
+            else {
+                reportStepFail("<b>VALIDATE</b> '" + description + "' - FAILED");
+                reportStepFailScreenshot();
+            }
+            return condition;
+        } finally {
+            ActionMetrics.end(started);
         }
-        return condition;
     }
 
     /**
@@ -530,12 +771,15 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     @Override
     public void dragAndDrop(String locatorFrom, String locatorTo) {
+        boolean started = ActionMetrics.begin(Action.DRAGANDDROP, locatorFrom);
         try {
-            WebElement from = getDriver().findElement(By.xpath(LocatorHelper.getLocator(locatorFrom)));
-            WebElement to = getDriver().findElement(By.xpath(LocatorHelper.getLocator(locatorTo)));
+            WebElement from = getDriver().findElement(LocatorHelper.getBy(locatorFrom));
+            WebElement to = getDriver().findElement(LocatorHelper.getBy(locatorTo));
             new Actions(getDriver()).dragAndDrop(from, to).perform();
         } catch (Exception e) {
             reportStepFail("DragAndDrop failed");
+        } finally {
+            ActionMetrics.end(started);
         }
     }
 
@@ -557,21 +801,18 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
 
     /**
      * Captures a screenshot and returns the file path.
+     * The file is written in the background by the ScreenshotWriter.
      * @return the relative path to the snapshot
      */
     public String screenshotFile() {
-        long time = new Date().getTime();
+        long begin = System.nanoTime();
         try {
-            File source = ((TakesScreenshot) getDriver()).getScreenshotAs(OutputType.FILE);
-            String snapshotsDir = Paths.get("").toAbsolutePath() + File.separator + "RunResults" + File.separator
-                    + "Resources" + File.separator + "Snapshots";
-            Files.createDirectories(Paths.get(snapshotsDir));
-            String fileName = time + ".png";
-            File destination = new File(snapshotsDir, fileName);
-            Files.copy(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            return "Resources" + File.separator + "Snapshots" + File.separator + fileName;
-        } catch (IOException | WebDriverException e) {
+            byte[] png = ((TakesScreenshot) getDriver()).getScreenshotAs(OutputType.BYTES);
+            return ScreenshotWriter.submit(png);
+        } catch (WebDriverException e) {
             return "";
+        } finally {
+            ActionMetrics.phase(Phase.SCREENSHOT, System.nanoTime() - begin);
         }
     }
 
@@ -585,45 +826,60 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     private boolean waitOnBy(By locator, WebelementState state, long timeout, boolean report) {
         setWaitCount(WaitCount() + 1);
-        WebDriverWait wa = new WebDriverWait(getDriver(), Duration.ofSeconds(timeout));
+        boolean started = ActionMetrics.begin(Action.WAIT, locator.toString());
         try {
-            WebElement el = wa
-                    .until(ExpectedConditions.refreshed(ExpectedConditions.presenceOfElementLocated(locator)));
-            setWebElement(el);
-            boolean result = false;
-            switch (state) {
-            case Enabled:
-                result = wa.until(d -> el.isEnabled());
-                break;
-            case Displayed:
-                result = wa.until(ExpectedConditions.visibilityOf(el)) != null;
-                break;
-            case Hidden:
-                result = wa.until(ExpectedConditions.invisibilityOf(el));
-                break;
-            case Selected:
-                result = wa.until(ExpectedConditions.elementToBeSelected(el));
-                break;
-            case UnSelected:
-                result = wa.until(d -> !el.isSelected());
-                break;
-            default:
-                break;
+            WaitEngine.Result wait = await(locator, state, timeout);
+            if (wait.getElement() != null) {
+                setWebElement(wait.getElement());
             }
+            boolean result = wait.isMet();
             if (report) {
+                String strategy = " (" + wait.getStrategy().name().toLowerCase() + ", " + wait.getElapsedMillis()
+                        + " ms)";
                 if (result)
-                    reportStepPass("<b>WAIT  </b> " + locator + " - SUCCESS");
+                    reportStepPass("<b>WAIT  </b> " + locator + " - SUCCESS" + strategy);
                 else
-                    reportStepFail("<b>WAIT  </b> " + locator + " - FAILED");
+                    reportStepFail("<b>WAIT  </b> " + locator + " - FAILED" + strategy);
+            } else {
+                log.fine(() -> "WAIT " + locator + " " + state + ": " + result + " by " + wait.getStrategy() + " in "
+                        + wait.getElapsedMillis() + " ms");
             }
             return result;
         } catch (Exception e) {
             if (report)
                 reportStepFail("<b>WAIT  </b> " + locator + " timed out");
             return false;
+        } finally {
+            ActionMetrics.end(started);
         }
     }
 
+    /**
+     * Waits by the WaitEngine and records the locate and wait phases of the action.
+     * @param locator the element locator
+     * @param state the expected state, null for present
+     * @param timeout timeout in seconds
+     * @return the result
+     */
+    private WaitEngine.Result await(By locator, WebelementState state, long timeout) {
+        long begin = System.nanoTime();
+        WaitEngine.Result wait = WaitEngine.await(getDriver(), locator, state, Duration.ofSeconds(timeout),
+                WaitEngine.getDefaultStrategy(), elementCache());
+        long nanos = System.nanoTime() - begin;
+        long locate = Math.min(nanos, wait.getLocateNanos());
+        ActionMetrics.phase(Phase.LOCATE, locate);
+        ActionMetrics.phase(Phase.WAIT, nanos - locate);
+        return wait;
+    }
+
+    /**
+     * Gets the element cache of the session, if the cache is enabled.
+     * @return the element cache or null
+     */
+    private static ElementCache elementCache() {
+        return ElementCache.isEnabled() ? SessionContext.current().getElementCache() : null;
+    }
+
     /**
      * Internal wait helper with 3 arguments. Resolves compilation error.
      * @param locator the element locator
@@ -655,7 +911,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     @Override
     public boolean waitOn(String locatorDelegate, WebelementState state, long timeout, boolean report) {
-        return waitOnBy(By.xpath(LocatorHelper.getLocator(locatorDelegate)), state, timeout, report);
+        return waitOnBy(LocatorHelper.getBy(locatorDelegate), state, timeout, report);
     }
 
     /**
@@ -703,7 +959,8 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
     }
 
     /**
-     * Loads test data from Excel.
+     * Loads test data from Excel, served from the {@link TestdataCache} while
+     * the workbook is unchanged.
      * @param testDataPath base path
      * @param simpleName   sheet name
      * @return data list
@@ -711,7 +968,7 @@ public class SeleniumHelper extends ExtentHelper implements SeleniumInterface, R
      */
     public static List<Object[]> getTestdata(String testDataPath, String simpleName) throws IOException {
         File file = new File(testDataPath, SeleniumStrings.TESTDATA_XLS);
-        return new ExcelHelper(file, simpleName).getData();
+        return TestdataCache.getData(file, simpleName);
     }
 
     /**
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.platform.selenium;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import com.aventstack.extentreports.ExtentTest;
+
+/**
+ * The Class SessionContext.
+ * <p>
+ * Holds the state of one browser session: the driver, the current element, the
+ * pass/fail flag, the action counters and the report nodes. Every thread
+ * (platform or virtual) owns its own context, so parallel runners can drive
+ * several browsers in one JVM. The static API of SeleniumHelper and
+ * ExtentHelper delegates to the context of the current thread.
+ */
+public class SessionContext {
+
+	/** The contexts of the threads. */
+	private static final ThreadLocal<SessionContext> CONTEXT = ThreadLocal.withInitial(SessionContext::new);
+
+	/** The id sequence. */
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	/** The id. */
+	private final long id = SEQUENCE.incrementAndGet();
+
+	/** The driver. */
+	private RemoteWebDriver driver;
+
+	/** The current or last interacted web element. */
+	private WebElement webElement;
+
+	/** The driver loaded. */
+	private boolean driverLoaded = false;
+
+	/** The iteration. */
+	private int iteration = 0;
+
+	/** The passed status. */
+	private boolean passed = true;
+
+	/** The wait count. */
+	private int waitCount;
+
+	/** The clicks count. */
+	private int clicksCount;
+
+	/** The inputs count. */
+	private int inputsCount;
+
+	/** The outputs count. */
+	private int outputsCount;
+
+	/** The html test. */
+	private ExtentTest htmlTest;
+
+	/** The pdf test. */
+	private ExtentTest pdfTest;
+
+	/** The html node. */
+	private ExtentTest htmlNode;
+
+	/** The pdf node. */
+	private ExtentTest pdfNode;
+
+	/** The name of the current test. */
+	private String testName;
+
+	/** The name of the current step. */
+	private String stepName;
+
+	/** The element cache. */
+	private final ElementCache elementCache = new ElementCache();
+
+	/**
+	 * Gets the context of the current thread.
+	 *
+	 * @return the session context
+	 */
+	public static SessionContext current() {
+		return CONTEXT.get();
+	}
+
+	/**
+	 * Binds a context to the current thread, e.g. to hand a session over to a
+	 * worker thread.
+	 *
+	 * @param context the context
+	 */
+	public static void bind(SessionContext context) {
+		CONTEXT.set(context);
+	}
+
+	/**
+	 * Removes the context of the current thread.
+	 */
+	public static void remove() {
+		CONTEXT.remove();
+	}
+
+	/**
+	 * Gets the id.
+	 *
+	 * @return the id
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the driver.
+	 *
+	 * @return the driver
+	 */
+	public RemoteWebDriver getDriver() {
+		return driver;
+	}
+
+	/**
+	 * Sets the driver.
+	 *
+	 * @param driver the new driver
+	 */
+	public void setDriver(RemoteWebDriver driver) {
+		this.driver = driver;
+		elementCache.invalidate();
+	}
+
+	/**
+	 * Gets the name of the current test.
+	 *
+	 * @return the test name
+	 */
+	public String getTestName() {
+		return testName;
+	}
+
+	/**
+	 * Sets the name of the current test.
+	 *
+	 * @param testName the new test name
+	 */
+	public void setTestName(String testName) {
+		this.testName = testName;
+	}
+
+	/**
+	 * Gets the name of the current step.
+	 *
+	 * @return the step name
+	 */
+	public String getStepName() {
+		return stepName;
+	}
+
+	/**
+	 * Sets the name of the current step.
+	 *
+	 * @param stepName the new step name
+	 */
+	public void setStepName(String stepName) {
+		this.stepName = stepName;
+	}
+
+	/**
+	 * Gets the element cache.
+	 *
+	 * @return the element cache
+	 */
+	public ElementCache getElementCache() {
+		return elementCache;
+	}
+
+	/**
+	 * Gets the web element.
+	 *
+	 * @return the web element
+	 */
+	public WebElement getWebElement() {
+		return webElement;
+	}
+
+	/**
+	 * Sets the web element.
+	 *
+	 * @param webElement the new web element
+	 */
+	public void setWebElement(WebElement webElement) {
+		this.webElement = webElement;
+	}
+
+	/**
+	 * Checks if the driver is loaded.
+	 *
+	 * @return true, if loaded
+	 */
+	public boolean isDriverLoaded() {
+		return driverLoaded;
+	}
+
+	/**
+	 * Sets the driver loaded.
+	 *
+	 * @param driverLoaded the new driver loaded
+	 */
+	public void setDriverLoaded(boolean driverLoaded) {
+		this.driverLoaded = driverLoaded;
+	}
+
+	/**
+	 * Gets the iteration.
+	 *
+	 * @return the iteration
+	 */
+	public int getIteration() {
+		return iteration;
+	}
+
+	/**
+	 * Sets the iteration.
+	 *
+	 * @param iteration the new iteration
+	 */
+	public void setIteration(int iteration) {
+		this.iteration = iteration;
+	}
+
+	/**
+	 * Checks if is passed.
+	 *
+	 * @return true, if is passed
+	 */
+	public boolean isPassed() {
+		return passed;
+	}
+
+	/**
+	 * Sets the passed.
+	 *
+	 * @param passed the new passed
+	 */
+	public void setPassed(boolean passed) {
+		this.passed = passed;
+	}
+
+	/**
+	 * Gets the wait count.
+	 *
+	 * @return the wait count
+	 */
+	public int getWaitCount() {
+		return waitCount;
+	}
+
+	/**
+	 * Sets the wait count.
+	 *
+	 * @param waitCount the new wait count
+	 */
+	public void setWaitCount(int waitCount) {
+		this.waitCount = waitCount;
+	}
+
+	/**
+	 * Gets the clicks count.
+	 *
+	 * @return the clicks count
+	 */
+	public int getClicksCount() {
+		return clicksCount;
+	}
+
+	/**
+	 * Sets the clicks count.
+	 *
+	 * @param clicksCount the new clicks count
+	 */
+	public void setClicksCount(int clicksCount) {
+		this.clicksCount = clicksCount;
+	}
+
+	/**
+	 * Gets the inputs count.
+	 *
+	 * @return the inputs count
+	 */
+	public int getInputsCount() {
+		return inputsCount;
+	}
+
+	/**
+	 * Sets the inputs count.
+	 *
+	 * @param inputsCount the new inputs count
+	 */
+	public void setInputsCount(int inputsCount) {
+		this.inputsCount = inputsCount;
+	}
+
+	/**
+	 * Gets the outputs count.
+	 *
+	 * @return the outputs count
+	 */
+	public int getOutputsCount() {
+		return outputsCount;
+	}
+
+	/**
+	 * Sets the outputs count.
+	 *
+	 * @param outputsCount the new outputs count
+	 */
+	public void setOutputsCount(int outputsCount) {
+		this.outputsCount = outputsCount;
+	}
+
+	/**
+	 * Gets the html test.
+	 *
+	 * @return the html test
+	 */
+	public ExtentTest getHtmlTest() {
+		return htmlTest;
+	}
+
+	/**
+	 * Sets the html test.
+	 *
+	 * @param htmlTest the new html test
+	 */
+	public void setHtmlTest(ExtentTest htmlTest) {
+		this.htmlTest = htmlTest;
+	}
+
+	/**
+	 * Gets the pdf test.
+	 *
+	 * @return the pdf test
+	 */
+	public ExtentTest getPdfTest() {
+		return pdfTest;
+	}
+
+	/**
+	 * Sets the pdf test.
+	 *
+	 * @param pdfTest the new pdf test
+	 */
+	public void setPdfTest(ExtentTest pdfTest) {
+		this.pdfTest = pdfTest;
+	}
+
+	/**
+	 * Gets the html node.
+	 *
+	 * @return the html node
+	 */
+	public ExtentTest getHtmlNode() {
+		return htmlNode;
+	}
+
+	/**
+	 * Sets the html node.
+	 *
+	 * @param htmlNode the new html node
+	 */
+	public void setHtmlNode(ExtentTest htmlNode) {
+		this.htmlNode = htmlNode;
+	}
+
+	/**
+	 * Gets the pdf node.
+	 *
+	 * @return the pdf node
+	 */
+	public ExtentTest getPdfNode() {
+		return pdfNode;
+	}
+
+	/**
+	 * Sets the pdf node.
+	 *
+	 * @param pdfNode the new pdf node
+	 */
+	public void setPdfNode(ExtentTest pdfNode) {
+		this.pdfNode = pdfNode;
+	}
+}
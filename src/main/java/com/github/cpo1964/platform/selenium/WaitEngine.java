@@ -0,0 +1,636 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.platform.selenium;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * The Class WaitEngine.
+ * <p>
+ * Waits for an element to reach a state with one deadline for locating the
+ * element and checking its state. The first 'wait.poll.fast' polls (default
+ * 3) are done every 'wait.poll.initialMillis' (default 10), then the interval
+ * grows by 50% per poll up to 'wait.poll.maxMillis' (default 250), so elements
+ * already on the page resolve within milliseconds and long waits do not
+ * flood the driver.
+ * <p>
+ * An element is located once and re-located only when it went stale. Hidden is
+ * also met by an absent element, NotFound by an absent element only.
+ * <p>
+ * With 'wait.strategy=observer' Displayed, Hidden and Enabled are awaited in
+ * the browser by a MutationObserver (see {@link WaitStrategy}), everything else
+ * and drivers without async scripts are polled.
+ * <p>
+ * The latency of every wait is recorded per locator. With an
+ * {@link ElementCache} a located element is reused by later waits.
+ */
+public final class WaitEngine {
+
+	/** The number of polls with the initial interval. */
+	private static final int FAST_POLLS = Integer.getInteger("wait.poll.fast", 3);
+
+	/** The initial poll interval. */
+	private static final long INITIAL_MILLIS = Math.max(1, Integer.getInteger("wait.poll.initialMillis", 10));
+
+	/** The max poll interval. */
+	private static final long MAX_MILLIS = Math.max(INITIAL_MILLIS, Integer.getInteger("wait.poll.maxMillis", 250));
+
+	/** The default script timeout of the W3C protocol. */
+	private static final long DEFAULT_SCRIPT_TIMEOUT_MILLIS = 30000;
+
+	/** The states supported by the observer. */
+	private static final Set<WebelementState> OBSERVED_STATES = EnumSet.of(WebelementState.Displayed,
+			WebelementState.Hidden, WebelementState.Enabled);
+
+	/**
+	 * The observer script. Arguments: using, value, state, timeout millis,
+	 * callback. Answers [met, element]. The state is checked on every mutation
+	 * and every 100 ms for changes by css transitions.
+	 */
+	private static final String OBSERVER_SCRIPT = String.join("\n",
+			"var using = arguments[0], value = arguments[1], state = arguments[2], timeout = arguments[3];",
+			"var done = arguments[arguments.length - 1];",
+			"function find() {",
+			"  if (using === 'xpath') {",
+			"    return document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null)"
+					+ ".singleNodeValue;",
+			"  }",
+			"  return document.querySelector(value);",
+			"}",
+			"function visible(e) {",
+			"  if (!e || !e.isConnected) { return false; }",
+			"  var s = window.getComputedStyle(e);",
+			"  if (s.display === 'none' || s.visibility !== 'visible' || s.opacity === '0') { return false; }",
+			"  var r = e.getBoundingClientRect();",
+			"  return r.width > 0 && r.height > 0;",
+			"}",
+			"function check() {",
+			"  var e = find();",
+			"  if (state === 'Displayed') { return visible(e) ? [true, e] : null; }",
+			"  if (state === 'Hidden') { return visible(e) ? null : [true, e]; }",
+			"  return e && !e.disabled ? [true, e] : null;",
+			"}",
+			"var first = check();",
+			"if (first) { done(first); return; }",
+			"var finished = false, observer, timer, interval;",
+			"function finish(answer) {",
+			"  if (finished) { return; }",
+			"  finished = true;",
+			"  observer.disconnect(); clearTimeout(timer); clearInterval(interval);",
+			"  done(answer);",
+			"}",
+			"function recheck() { var a = check(); if (a) { finish(a); } }",
+			"observer = new MutationObserver(recheck);",
+			"observer.observe(document, { subtree: true, childList: true, attributes: true });",
+			"interval = setInterval(recheck, 100);",
+			"timer = setTimeout(function() { finish([false, null]); }, timeout);");
+
+	/** The script timeouts by driver. */
+	private static final Map<WebDriver, Long> SCRIPT_TIMEOUTS = new WeakHashMap<>();
+
+	/** The default strategy. */
+	private static volatile WaitStrategy defaultStrategy = "observer"
+			.equalsIgnoreCase(System.getProperty("wait.strategy")) ? WaitStrategy.OBSERVER : WaitStrategy.POLLING;
+
+	/** The statistics by locator. */
+	private static final Map<String, LocatorStats> STATS = new ConcurrentHashMap<>();
+
+	/**
+	 * Instantiates a new wait engine.
+	 */
+	private WaitEngine() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Waits for an element to reach a state with the default strategy.
+	 *
+	 * @param driver  the driver
+	 * @param locator the locator
+	 * @param state   the state, null for present
+	 * @param timeout the timeout for locating and state together
+	 * @return the result
+	 */
+	public static Result await(WebDriver driver, By locator, WebelementState state, Duration timeout) {
+		return await(driver, locator, state, timeout, defaultStrategy);
+	}
+
+	/**
+	 * Waits for an element to reach a state. The observer strategy falls back to
+	 * polling, if the driver, the locator or the state does not support it or
+	 * the script fails.
+	 *
+	 * @param driver   the driver
+	 * @param locator  the locator
+	 * @param state    the state, null for present
+	 * @param timeout  the timeout for locating and state together
+	 * @param strategy the strategy
+	 * @return the result
+	 */
+	public static Result await(WebDriver driver, By locator, WebelementState state, Duration timeout,
+			WaitStrategy strategy) {
+		return await(driver, locator, state, timeout, strategy, null);
+	}
+
+	/**
+	 * Waits for an element to reach a state, starting with the element of a
+	 * cache. The state check of a cached element is the first poll, so a hit
+	 * whose state is met needs no lookup. Waits on presence and NotFound always
+	 * look the element up. The located element is put into the cache.
+	 *
+	 * @param driver   the driver
+	 * @param locator  the locator
+	 * @param state    the state, null for present
+	 * @param timeout  the timeout for locating and state together
+	 * @param strategy the strategy
+	 * @param cache    the cache, null for none
+	 * @return the result
+	 */
+	public static Result await(WebDriver driver, By locator, WebelementState state, Duration timeout,
+			WaitStrategy strategy, ElementCache cache) {
+		long start = System.nanoTime();
+		long deadline = start + timeout.toNanos();
+		Result result = null;
+		WebElement cached = null;
+		if (cache != null && state != null && state != WebelementState.NotFound) {
+			cached = cache.get(locator);
+			try {
+				if (cached != null && isMet(cached, state)) {
+					long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					result = new Result(true, cached, elapsed, 0, 1, WaitStrategy.POLLING);
+				}
+			} catch (StaleElementReferenceException e) {
+				cache.stale(locator);
+				cached = null;
+			}
+		}
+		if (result == null && cached == null && strategy == WaitStrategy.OBSERVER) {
+			result = observe(driver, locator, state, start, deadline);
+		}
+		if (result == null) {
+			result = poll(driver, locator, state, start, deadline, cached);
+		}
+		if (cache != null && result.getElement() != null) {
+			cache.put(locator, result.getElement());
+		}
+		STATS.computeIfAbsent(locator.toString(), k -> new LocatorStats()).record(result.getElapsedMillis(),
+				result.getPolls(), result.isMet());
+		return result;
+	}
+
+	/**
+	 * Gets the default strategy.
+	 *
+	 * @return the default strategy
+	 */
+	public static WaitStrategy getDefaultStrategy() {
+		return defaultStrategy;
+	}
+
+	/**
+	 * Sets the default strategy.
+	 *
+	 * @param strategy the new default strategy
+	 */
+	public static void setDefaultStrategy(WaitStrategy strategy) {
+		defaultStrategy = strategy == null ? WaitStrategy.POLLING : strategy;
+	}
+
+	/**
+	 * Polls from the JVM until the state is met or the deadline is reached.
+	 *
+	 * @param driver   the driver
+	 * @param locator  the locator
+	 * @param state    the state, null for present
+	 * @param start    the start in nanos
+	 * @param deadline the deadline in nanos
+	 * @param el       the element to start with, null to look it up
+	 * @return the result
+	 */
+	private static Result poll(WebDriver driver, By locator, WebelementState state, long start, long deadline,
+			WebElement el) {
+		long interval = INITIAL_MILLIS;
+		int polls = 0;
+		long located = el == null ? -1 : 0;
+		boolean met;
+		while (true) {
+			polls++;
+			if (el == null || state == WebelementState.NotFound) {
+				el = find(driver, locator);
+				if (el != null && located < 0) {
+					located = System.nanoTime() - start;
+				}
+			}
+			try {
+				met = isMet(el, state);
+			} catch (StaleElementReferenceException e) {
+				el = find(driver, locator);
+				try {
+					met = isMet(el, state);
+				} catch (StaleElementReferenceException again) {
+					el = null;
+					met = false;
+				}
+			}
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (met || remaining <= 0) {
+				break;
+			}
+			sleep(Math.min(interval, remaining));
+			if (polls >= FAST_POLLS) {
+				interval = Math.min(MAX_MILLIS, interval + Math.max(1, interval / 2));
+			}
+		}
+		long elapsedNanos = System.nanoTime() - start;
+		return new Result(met, el, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+				located < 0 ? elapsedNanos : located, polls, WaitStrategy.POLLING);
+	}
+
+	/**
+	 * Waits in the browser by a MutationObserver. A wait longer than the script
+	 * timeout of the driver is split into several scripts. The state reported by
+	 * the script is confirmed once by the driver.
+	 *
+	 * @param driver   the driver
+	 * @param locator  the locator
+	 * @param state    the state
+	 * @param start    the start in nanos
+	 * @param deadline the deadline in nanos
+	 * @return the result or null, if polling has to be used
+	 */
+	private static Result observe(WebDriver driver, By locator, WebelementState state, long start, long deadline) {
+		if (!(driver instanceof JavascriptExecutor) || !(locator instanceof By.Remotable) || state == null
+				|| !OBSERVED_STATES.contains(state)) {
+			return null;
+		}
+		By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+		if (!"xpath".equals(params.using()) && !"css selector".equals(params.using())) {
+			return null;
+		}
+		long chunk = Math.max(500, scriptTimeoutMillis(driver) - 500);
+		int scripts = 0;
+		try {
+			while (true) {
+				scripts++;
+				long remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+				Object value = ((JavascriptExecutor) driver).executeAsyncScript(OBSERVER_SCRIPT, params.using(),
+						String.valueOf(params.value()), state.name(), Math.min(remaining, chunk));
+				List<?> answer = value instanceof List ? (List<?>) value : Collections.emptyList();
+				boolean met = !answer.isEmpty() && Boolean.TRUE.equals(answer.get(0));
+				WebElement el = answer.size() > 1 && answer.get(1) instanceof WebElement ? (WebElement) answer.get(1)
+						: null;
+				if (met && !isMet(el, state)) {
+					// the browser side check differs from the driver, let the driver decide
+					return null;
+				}
+				if (met || System.nanoTime() >= deadline) {
+					long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					return new Result(met, el, elapsed, 0, scripts, WaitStrategy.OBSERVER);
+				}
+			}
+		} catch (WebDriverException e) {
+			// no async scripts, navigation during the wait, ...
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the script timeout of a driver, read once per driver.
+	 *
+	 * @param driver the driver
+	 * @return the script timeout in millis
+	 */
+	private static long scriptTimeoutMillis(WebDriver driver) {
+		synchronized (SCRIPT_TIMEOUTS) {
+			return SCRIPT_TIMEOUTS.computeIfAbsent(driver, d -> {
+				try {
+					return d.manage().timeouts().getScriptTimeout().toMillis();
+				} catch (RuntimeException e) {
+					return DEFAULT_SCRIPT_TIMEOUT_MILLIS;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Gets the statistics of a locator.
+	 *
+	 * @param locator the locator
+	 * @return the statistics or null, if there was no wait on it
+	 */
+	public static LocatorStats getStats(By locator) {
+		return STATS.get(locator.toString());
+	}
+
+	/**
+	 * Gets a summary of the locators with the longest total wait time.
+	 *
+	 * @param limit the number of locators
+	 * @return the summary, one line per locator
+	 */
+	public static String getStatsSummary(int limit) {
+		List<Map.Entry<String, LocatorStats>> entries = new ArrayList<>(STATS.entrySet());
+		entries.sort(Comparator.comparingLong((Map.Entry<String, LocatorStats> e) -> e.getValue().getTotalMillis())
+				.reversed());
+		StringBuilder bld = new StringBuilder();
+		for (Map.Entry<String, LocatorStats> e : entries.subList(0, Math.min(limit, entries.size()))) {
+			bld.append(e.getKey()).append(": ").append(e.getValue()).append(System.lineSeparator());
+		}
+		return bld.toString();
+	}
+
+	/**
+	 * Clears the statistics.
+	 */
+	public static void clearStats() {
+		STATS.clear();
+	}
+
+	/**
+	 * Finds the first element of a locator.
+	 *
+	 * @param driver  the driver
+	 * @param locator the locator
+	 * @return the element or null
+	 */
+	private static WebElement find(WebDriver driver, By locator) {
+		try {
+			List<WebElement> elements = driver.findElements(locator);
+			return elements.isEmpty() ? null : elements.get(0);
+		} catch (NotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks the state of an element.
+	 *
+	 * @param el    the element or null
+	 * @param state the state, null for present
+	 * @return true, if met
+	 */
+	private static boolean isMet(WebElement el, WebelementState state) {
+		if (state == null) {
+			return el != null;
+		}
+		switch (state) {
+		case NotFound:
+			return el == null;
+		case Hidden:
+			return el == null || !el.isDisplayed();
+		default:
+			break;
+		}
+		if (el == null) {
+			return false;
+		}
+		switch (state) {
+		case Displayed:
+			return el.isDisplayed();
+		case Enabled:
+			return el.isEnabled();
+		case Disabled:
+			return !el.isEnabled();
+		case Selected:
+			return el.isSelected();
+		case UnSelected:
+			return !el.isSelected();
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Sleeps without swallowing an interrupt.
+	 *
+	 * @param millis the millis
+	 */
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("wait interrupted", e);
+		}
+	}
+
+	/**
+	 * The result of a wait.
+	 */
+	public static final class Result {
+
+		/** The met flag. */
+		private final boolean met;
+
+		/** The element. */
+		private final WebElement element;
+
+		/** The elapsed millis. */
+		private final long elapsedMillis;
+
+		/** The locate nanos. */
+		private final long locateNanos;
+
+		/** The polls. */
+		private final int polls;
+
+		/** The strategy. */
+		private final WaitStrategy strategy;
+
+		/**
+		 * Instantiates a new result.
+		 *
+		 * @param met           the met flag
+		 * @param element       the element
+		 * @param elapsedMillis the elapsed millis
+		 * @param locateNanos   the nanos until the element was located
+		 * @param polls         the polls or scripts
+		 * @param strategy      the strategy used
+		 */
+		Result(boolean met, WebElement element, long elapsedMillis, long locateNanos, int polls,
+				WaitStrategy strategy) {
+			this.met = met;
+			this.element = element;
+			this.elapsedMillis = elapsedMillis;
+			this.locateNanos = locateNanos;
+			this.polls = polls;
+			this.strategy = strategy;
+		}
+
+		/**
+		 * Checks if the state was reached.
+		 *
+		 * @return true, if met
+		 */
+		public boolean isMet() {
+			return met;
+		}
+
+		/**
+		 * Gets the element.
+		 *
+		 * @return the last located element or null
+		 */
+		public WebElement getElement() {
+			return element;
+		}
+
+		/**
+		 * Gets the elapsed millis.
+		 *
+		 * @return the elapsed millis
+		 */
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+		/**
+		 * Gets the nanos until the element was first located, the whole wait if
+		 * it was never located. A cached element and the observer, which locates
+		 * and waits in one script, count as located at once.
+		 *
+		 * @return the locate nanos
+		 */
+		public long getLocateNanos() {
+			return locateNanos;
+		}
+
+		/**
+		 * Gets the number of polls, for the observer the number of scripts.
+		 *
+		 * @return the polls
+		 */
+		public int getPolls() {
+			return polls;
+		}
+
+		/**
+		 * Gets the strategy used.
+		 *
+		 * @return the strategy
+		 */
+		public WaitStrategy getStrategy() {
+			return strategy;
+		}
+	}
+
+	/**
+	 * The wait statistics of a locator.
+	 */
+	public static final class LocatorStats {
+
+		/** The waits. */
+		private final LongAdder count = new LongAdder();
+
+		/** The timeouts. */
+		private final LongAdder timeouts = new LongAdder();
+
+		/** The polls. */
+		private final LongAdder polls = new LongAdder();
+
+		/** The total millis. */
+		private final LongAdder totalMillis = new LongAdder();
+
+		/** The max millis. */
+		private final AtomicLong maxMillis = new AtomicLong();
+
+		/**
+		 * Records a wait.
+		 *
+		 * @param millis    the millis
+		 * @param pollCount the polls
+		 * @param met       the met flag
+		 */
+		void record(long millis, int pollCount, boolean met) {
+			count.increment();
+			polls.add(pollCount);
+			totalMillis.add(millis);
+			maxMillis.accumulateAndGet(millis, Math::max);
+			if (!met) {
+				timeouts.increment();
+			}
+		}
+
+		/**
+		 * Gets the number of waits.
+		 *
+		 * @return the count
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * Gets the number of timeouts.
+		 *
+		 * @return the timeouts
+		 */
+		public long getTimeouts() {
+			return timeouts.sum();
+		}
+
+		/**
+		 * Gets the total millis.
+		 *
+		 * @return the total millis
+		 */
+		public long getTotalMillis() {
+			return totalMillis.sum();
+		}
+
+		/**
+		 * Gets the max millis.
+		 *
+		 * @return the max millis
+		 */
+		public long getMaxMillis() {
+			return maxMillis.get();
+		}
+
+		/**
+		 * Gets the average millis.
+		 *
+		 * @return the average millis
+		 */
+		public long getAvgMillis() {
+			long n = count.sum();
+			return n == 0 ? 0 : totalMillis.sum() / n;
+		}
+
+		@Override
+		public String toString() {
+			return "waits=" + getCount() + ", timeouts=" + getTimeouts() + ", avgMillis=" + getAvgMillis()
+					+ ", maxMillis=" + getMaxMillis() + ", polls=" + polls.sum();
+		}
+	}
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.platform.selenium;
+
+/**
+ * The enum Wait strategy.
+ */
+public enum WaitStrategy {
+	/**
+	 * Polling from the JVM, one round trip per check.
+	 */
+	POLLING,
+	/**
+	 * A MutationObserver in the browser, one round trip per wait. Used for
+	 * Displayed, Hidden and Enabled on xpath or css locators.
+	 */
+	OBSERVER
+}
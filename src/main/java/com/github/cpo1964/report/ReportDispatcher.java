@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * The Class ReportDispatcher.
+ * <p>
+ * Hands the report events to a set of {@link ReportSink}s. Every sink has its
+ * own queue of 'report.queue' events (default 10000) and its own daemon
+ * thread, so a slow sink, e.g. the pdf report, neither blocks the test threads
+ * nor the other sinks. Only a full queue makes the reporting thread wait.
+ * Without sinks the events are dropped.
+ */
+public final class ReportDispatcher {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(ReportDispatcher.class.getSimpleName());
+
+	/** The queue size per sink. */
+	private static final int QUEUE_SIZE = Math.max(16, Integer.getInteger("report.queue", 10000));
+
+	/** The workers, one per sink. */
+	private final List<Worker> workers = new ArrayList<>();
+
+	/**
+	 * Instantiates a new report dispatcher and starts a thread per sink.
+	 *
+	 * @param sinks the sinks
+	 */
+	public ReportDispatcher(List<ReportSink> sinks) {
+		for (ReportSink sink : sinks) {
+			workers.add(new Worker(sink));
+		}
+	}
+
+	/**
+	 * Gets the sinks.
+	 *
+	 * @return the sinks
+	 */
+	public List<ReportSink> getSinks() {
+		List<ReportSink> sinks = new ArrayList<>();
+		for (Worker worker : workers) {
+			sinks.add(worker.sink);
+		}
+		return Collections.unmodifiableList(sinks);
+	}
+
+	/**
+	 * Checks if there are sinks.
+	 *
+	 * @return true, if there are sinks
+	 */
+	public boolean hasSinks() {
+		return !workers.isEmpty();
+	}
+
+	/**
+	 * Hands an event to all sinks.
+	 *
+	 * @param event the event
+	 */
+	public void dispatch(ReportEvent event) {
+		for (Worker worker : workers) {
+			worker.put(() -> worker.sink.accept(event));
+		}
+	}
+
+	/**
+	 * Makes all sinks write the events dispatched so far.
+	 *
+	 * @param last true for the end of the run
+	 * @param wait true to wait until they are written
+	 */
+	public void flush(boolean last, boolean wait) {
+		run(sink -> sink.flush(last), wait);
+	}
+
+	/**
+	 * Waits until all sinks have handled the events dispatched so far.
+	 */
+	public void awaitIdle() {
+		run(sink -> {
+		}, true);
+	}
+
+	/**
+	 * Runs a task by every worker after the queued events.
+	 *
+	 * @param task the task
+	 * @param wait true to wait until all workers have run it
+	 */
+	private void run(Consumer<ReportSink> task, boolean wait) {
+		CountDownLatch done = new CountDownLatch(workers.size());
+		for (Worker worker : workers) {
+			if (worker.thread == Thread.currentThread()) {
+				// a sink must not wait for itself
+				task.accept(worker.sink);
+				done.countDown();
+			} else {
+				worker.put(() -> {
+					try {
+						task.accept(worker.sink);
+					} finally {
+						done.countDown();
+					}
+				});
+			}
+		}
+		if (wait) {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * The worker of a sink.
+	 */
+	private static final class Worker {
+
+		/** The sink. */
+		private final ReportSink sink;
+
+		/** The queue. */
+		private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+		/** The thread. */
+		private final Thread thread;
+
+		/**
+		 * Instantiates a new worker and starts its thread.
+		 *
+		 * @param sink the sink
+		 */
+		Worker(ReportSink sink) {
+			this.sink = sink;
+			thread = new Thread(this::work, "report-sink-" + sink.getName());
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Queues a task, waits while the queue is full.
+		 *
+		 * @param task the task
+		 */
+		void put(Runnable task) {
+			try {
+				queue.put(task);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.warning(() -> "report event for " + sink.getName() + " lost, thread interrupted");
+			}
+		}
+
+		/**
+		 * The loop of the thread.
+		 */
+		private void work() {
+			while (true) {
+				Runnable task;
+				try {
+					task = queue.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				try {
+					task.run();
+				} catch (Throwable e) {
+					// e.g. an Error of the pdf reporter, the thread has to survive it, otherwise
+					// its queue is never drained and every wait for the sinks blocks
+					log.warning(() -> "report sink " + sink.getName() + " failed: " + e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report;
+
+import com.github.cpo1964.platform.selenium.SessionContext;
+import com.github.cpo1964.utils.ActionMetrics;
+
+/**
+ * The Class ReportEvent.
+ * <p>
+ * One call of the {@link ReportInterface}. The state of the reporting thread,
+ * i.e. session, test, step and running action, is taken when the event is
+ * created, as the sinks handle it later on their own threads.
+ */
+public final class ReportEvent {
+
+	/**
+	 * The event types.
+	 */
+	public enum Type {
+
+		/** A test is created. */
+		CREATE_TEST,
+
+		/** A test ends. */
+		END_TEST,
+
+		/** A message of a test. */
+		TEST_LOG,
+
+		/** A step is created. */
+		CREATE_STEP,
+
+		/** A message of a step. */
+		STEP_LOG,
+
+		/** A screenshot of a step. */
+		SCREENSHOT
+	}
+
+	/** The type. */
+	private final Type type;
+
+	/** The status PASS, FAIL or INFO, null for none. */
+	private final String status;
+
+	/** The html message. */
+	private final String html;
+
+	/** The pdf message. */
+	private final String pdf;
+
+	/** The plain message. */
+	private final String plain;
+
+	/** The screenshot path. */
+	private final String screenshot;
+
+	/** The session context. */
+	private final SessionContext context;
+
+	/** The thread name. */
+	private final String thread;
+
+	/** The time in millis. */
+	private final long millis;
+
+	/** The test name. */
+	private final String testName;
+
+	/** The step name. */
+	private final String stepName;
+
+	/** The running action. */
+	private final ActionMetrics.Action action;
+
+	/** The locator of the running action. */
+	private final String locator;
+
+	/** The nanos of the running action so far. */
+	private final long actionNanos;
+
+	/**
+	 * Instantiates a new report event of the current session.
+	 *
+	 * @param type       the type
+	 * @param status     the status, null for none
+	 * @param html       the html message
+	 * @param pdf        the pdf message
+	 * @param plain      the plain message, the title of a screenshot
+	 * @param screenshot the screenshot path, null for none
+	 */
+	public ReportEvent(Type type, String status, String html, String pdf, String plain, String screenshot) {
+		this.type = type;
+		this.status = status;
+		this.html = html;
+		this.pdf = pdf;
+		this.plain = plain;
+		this.screenshot = screenshot;
+		this.context = SessionContext.current();
+		this.thread = Thread.currentThread().getName();
+		this.millis = System.currentTimeMillis();
+		this.testName = context.getTestName();
+		this.stepName = context.getStepName();
+		this.action = ActionMetrics.getCurrentAction();
+		this.locator = action == null ? null : ActionMetrics.getCurrentLocator();
+		this.actionNanos = action == null ? 0 : ActionMetrics.getCurrentNanos();
+	}
+
+	/**
+	 * Gets the type.
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the status.
+	 *
+	 * @return the status, null for none
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * Gets the html message.
+	 *
+	 * @return the html message
+	 */
+	public String getHtml() {
+		return html;
+	}
+
+	/**
+	 * Gets the pdf message.
+	 *
+	 * @return the pdf message
+	 */
+	public String getPdf() {
+		return pdf;
+	}
+
+	/**
+	 * Gets the plain message.
+	 *
+	 * @return the plain message
+	 */
+	public String getPlain() {
+		return plain;
+	}
+
+	/**
+	 * Gets the screenshot path.
+	 *
+	 * @return the screenshot path, null for none
+	 */
+	public String getScreenshot() {
+		return screenshot;
+	}
+
+	/**
+	 * Gets the session context.
+	 *
+	 * @return the session context
+	 */
+	public SessionContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Gets the session id.
+	 *
+	 * @return the session id
+	 */
+	public long getSession() {
+		return context.getId();
+	}
+
+	/**
+	 * Gets the thread name.
+	 *
+	 * @return the thread name
+	 */
+	public String getThread() {
+		return thread;
+	}
+
+	/**
+	 * Gets the time.
+	 *
+	 * @return the time in millis
+	 */
+	public long getMillis() {
+		return millis;
+	}
+
+	/**
+	 * Gets the test name.
+	 *
+	 * @return the test name
+	 */
+	public String getTestName() {
+		return testName;
+	}
+
+	/**
+	 * Gets the step name.
+	 *
+	 * @return the step name
+	 */
+	public String getStepName() {
+		return stepName;
+	}
+
+	/**
+	 * Gets the running action.
+	 *
+	 * @return the action, null for none
+	 */
+	public ActionMetrics.Action getAction() {
+		return action;
+	}
+
+	/**
+	 * Gets the locator of the running action.
+	 *
+	 * @return the locator
+	 */
+	public String getLocator() {
+		return locator;
+	}
+
+	/**
+	 * Gets the nanos of the running action so far.
+	 *
+	 * @return the nanos
+	 */
+	public long getActionNanos() {
+		return actionNanos;
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report;
+
+/**
+ * The Interface ReportSink.
+ * <p>
+ * A target of the report events, e.g. the html report. Every sink is called by
+ * its own thread of the {@link ReportDispatcher}, so a sink sees the events in
+ * the order they were reported and does not need to be thread safe.
+ */
+public interface ReportSink {
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	String getName();
+
+	/**
+	 * Accepts an event.
+	 *
+	 * @param event the event
+	 */
+	void accept(ReportEvent event);
+
+	/**
+	 * Writes the events accepted so far.
+	 *
+	 * @param last true for the end of the run
+	 */
+	default void flush(boolean last) {
+	}
+}
@@ -16,18 +16,21 @@ import java.io.File;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
-import java.util.stream.Stream;
 
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
-import com.aventstack.extentreports.model.Media;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
-import com.github.cpo1964.platform.selenium.CommonSeleniumException;
+import com.github.cpo1964.platform.selenium.SessionContext;
+import com.github.cpo1964.report.ReportDispatcher;
+import com.github.cpo1964.report.ReportEvent;
+import com.github.cpo1964.report.ReportSink;
+import com.github.cpo1964.utils.ActionMetrics;
+import com.github.cpo1964.utils.ActionMetrics.Phase;
 import com.github.cpo1964.utils.MaxlevelStreamHandler;
 
 import tech.grasshopper.reporter.ExtentPDFReporter;
@@ -42,44 +45,92 @@ public class ExtentHelper {
 	 */
 	static Logger logSelenium = Logger.getLogger(ExtentHelper.class.getSimpleName());
 
-	/** The passed status. */
-	private static boolean passed = true;
+	/** The logger. */
+	private static final Logger logExtent = Logger.getLogger(ExtentHelper.class.getSimpleName());
 
-	/** The exists count. */
-	private static int waitCount;
+	/** The sinks, 'report.sinks' (default 'html,pdf,jsonl'). */
+	private static final String SINKS = System.getProperty("report.sinks", "html,pdf,jsonl");
 
-	/** The clicks count. */
-	private static int clicksCount;
+	/** The pdf deferred flag. */
+	private static final boolean PDF_DEFERRED = Boolean.getBoolean("report.pdf.deferred");
 
-	/** The inputs count. */
-	private static int inputsCount;
+	/** The run results dir, set when the reports are prepared. */
+	private static volatile String runResultsDir;
 
-	/** The ouputs count. */
-	private static int outputsCount;
+	/** The htmlReport, null if the sink 'html' is off. */
+	private static ExtentReports htmlReport;
 
-	/** The logger. */
-	private static final Logger logExtent = Logger.getLogger(ExtentHelper.class.getSimpleName());
+	/** The pdfReport, null if the sink 'pdf' is off. */
+	private static ExtentReports pdfReport;
+
+	/** The prepared flag, set when the reports are prepared. */
+	private static volatile boolean prepared;
+
+	/**
+	 * The reports, prepared on first use instead of on class initialization.
+	 */
+	private static final class Reports {
+
+		/** The dispatcher of the report events. */
+		static final ReportDispatcher DISPATCHER = ExtentHelper.prepareReports();
 
-	/** The htmlTest. */
-	private static ExtentTest htmlTest;
+		/**
+		 * Instantiates a new reports.
+		 */
+		private Reports() {
+			throw new IllegalStateException("Utility class");
+		}
+	}
+
+	/**
+	 * The system info, resolved once.
+	 */
+	private static final class SystemInfo {
 
-	/** The pdfTest. */
-	private static ExtentTest pdfTest;
+		/** The host name, null if it can not be resolved. */
+		static final String HOSTNAME = ExtentHelper.resolveHostName();
 
-	/** The htmlNode. */
-	private static ExtentTest htmlNode;
+		/** The operation system name. */
+		static final String OS_NAME = System.getProperty("os.name");
 
-	/** The pdfNode. */
-	private static ExtentTest pdfNode;
+		/** The operation system version. */
+		static final String OS_VERSION = System.getProperty("os.version");
 
-	/** The htmlReport. */
-	private static ExtentReports htmlReport = ExtentHelper.prepareHtmlReport();
+		/** The operation system for the reports. */
+		static final String OS = OS_NAME + " " + OS_VERSION;
 
-	/** The htmlReport. */
-	private static ExtentReports pdfReport = ExtentHelper.preparePdfReport();
+		/** The operation system for the log. */
+		static final String OS_LOG = OS_NAME + " - " + OS_VERSION;
 
-	/** The run results dir. */
-	private static String runResultsDir = null;
+		/** The user. */
+		static final String USER = System.getProperty("user.name");
+
+		/**
+		 * Instantiates a new system info.
+		 */
+		private SystemInfo() {
+			throw new IllegalStateException("Utility class");
+		}
+	}
+
+	/**
+	 * Gets the run results dir, prepares the reports if not done yet.
+	 *
+	 * @return the run results dir
+	 */
+	public static String getRunResultsDir() {
+		getDispatcher();
+		return runResultsDir;
+	}
+
+	/**
+	 * Checks if the reports are prepared, i.e. something was reported.
+	 *
+	 * @return true, if prepared
+	 */
+	public static boolean isPrepared() {
+		return prepared;
+	}
 
 	/**
 	 * Wait count.
@@ -87,7 +138,7 @@ public class ExtentHelper {
 	 * @return the int
 	 */
 	public static int WaitCount() {
-		return waitCount;
+		return SessionContext.current().getWaitCount();
 	}
 
 	/**
@@ -96,7 +147,7 @@ public class ExtentHelper {
 	 * @param value the new wait count
 	 */
 	public static void setWaitCount(int value) {
-		ExtentHelper.waitCount = value;
+		SessionContext.current().setWaitCount(value);
 	}
 
 	/**
@@ -105,7 +156,7 @@ public class ExtentHelper {
 	 * @return the clicks count
 	 */
 	public static int getClicksCount() {
-		return clicksCount;
+		return SessionContext.current().getClicksCount();
 	}
 
 	/**
@@ -114,7 +165,7 @@ public class ExtentHelper {
 	 * @param value the new clicks count
 	 */
 	public static void setClicksCount(int value) {
-		ExtentHelper.clicksCount = value;
+		SessionContext.current().setClicksCount(value);
 	}
 
 	/**
@@ -123,7 +174,7 @@ public class ExtentHelper {
 	 * @return the inputs count
 	 */
 	public static int getInputsCount() {
-		return inputsCount;
+		return SessionContext.current().getInputsCount();
 	}
 
 	/**
@@ -132,7 +183,7 @@ public class ExtentHelper {
 	 * @param value the new inputs count
 	 */
 	public static void setInputsCount(int value) {
-		ExtentHelper.inputsCount = value;
+		SessionContext.current().setInputsCount(value);
 	}
 
 	/**
@@ -141,7 +192,7 @@ public class ExtentHelper {
 	 * @return the outputs count
 	 */
 	public static int getOutputsCount() {
-		return outputsCount;
+		return SessionContext.current().getOutputsCount();
 	}
 
 	/**
@@ -150,7 +201,7 @@ public class ExtentHelper {
 	 * @param value the new outputs count
 	 */
 	public static void setOutputsCount(int value) {
-		ExtentHelper.outputsCount = value;
+		SessionContext.current().setOutputsCount(value);
 	}
 
 	/**
@@ -159,7 +210,7 @@ public class ExtentHelper {
 	 * @return true, if is failed
 	 */
 	public static boolean isFailed() {
-		return passed == false;
+		return !SessionContext.current().isPassed();
 	}
 
 	/**
@@ -168,21 +219,21 @@ public class ExtentHelper {
 	 * @return true, if is passed
 	 */
 	public static boolean isPassed() {
-		return passed == true;
+		return SessionContext.current().isPassed();
 	}
 
 	/**
 	 * Sets the passed.
 	 */
 	public static void setPassed() {
-		passed = true;
+		SessionContext.current().setPassed(true);
 	}
 
 	/**
 	 * Sets the failed.
 	 */
 	public static void setFailed() {
-		passed = false;
+		SessionContext.current().setPassed(false);
 	}
 
 	/**
@@ -191,7 +242,8 @@ public class ExtentHelper {
 	 * @return the test
 	 */
 	public static ExtentTest getHtmlTest() {
-		return htmlTest;
+		awaitReports();
+		return SessionContext.current().getHtmlTest();
 	}
 
 	/**
@@ -200,7 +252,7 @@ public class ExtentHelper {
 	 * @param test the new htmlTest
 	 */
 	public static void setHtmlTest(ExtentTest test) {
-		htmlTest = test;
+		SessionContext.current().setHtmlTest(test);
 	}
 
 	/**
@@ -209,7 +261,8 @@ public class ExtentHelper {
 	 * @return the test
 	 */
 	public static ExtentTest getPdfTest() {
-		return pdfTest;
+		awaitReports();
+		return SessionContext.current().getPdfTest();
 	}
 
 	/**
@@ -218,7 +271,7 @@ public class ExtentHelper {
 	 * @param test the new pdfTest
 	 */
 	public static void setPdfTest(ExtentTest test) {
-		pdfTest = test;
+		SessionContext.current().setPdfTest(test);
 	}
 
 	/**
@@ -227,7 +280,8 @@ public class ExtentHelper {
 	 * @return the node
 	 */
 	public static ExtentTest getHtmlNode() {
-		return htmlNode;
+		awaitReports();
+		return SessionContext.current().getHtmlNode();
 	}
 
 	/**
@@ -236,7 +290,7 @@ public class ExtentHelper {
 	 * @param node the new node
 	 */
 	public static void setHtmlNode(ExtentTest node) {
-		htmlNode = node;
+		SessionContext.current().setHtmlNode(node);
 	}
 
 	/**
@@ -245,7 +299,8 @@ public class ExtentHelper {
 	 * @return the node
 	 */
 	public static ExtentTest getPdfNode() {
-		return pdfNode;
+		awaitReports();
+		return SessionContext.current().getPdfNode();
 	}
 
 	/**
@@ -254,7 +309,7 @@ public class ExtentHelper {
 	 * @param node the new node
 	 */
 	public static void setPdfNode(ExtentTest node) {
-		pdfNode = node;
+		SessionContext.current().setPdfNode(node);
 	}
 
 	/**
@@ -263,6 +318,7 @@ public class ExtentHelper {
 	 * @return the report
 	 */
 	public static ExtentReports getPdfReport() {
+		getDispatcher().awaitIdle();
 		return pdfReport;
 	}
 
@@ -281,6 +337,7 @@ public class ExtentHelper {
 	 * @return the report
 	 */
 	public static ExtentReports getHtmlReport() {
+		getDispatcher().awaitIdle();
 		return htmlReport;
 	}
 
@@ -294,31 +351,113 @@ public class ExtentHelper {
 	}
 
 	/**
-	 * prepare the html report.
+	 * Waits until the report events reported so far are written to the reports,
+	 * so the reports and the tests can be used directly.
+	 */
+	public static void awaitReports() {
+		if (prepared) {
+			Reports.DISPATCHER.awaitIdle();
+		}
+	}
+
+	/**
+	 * Gets the dispatcher of the report events, prepares the reports if not done
+	 * yet.
 	 *
-	 * @return the extent reports
+	 * @return the dispatcher
 	 */
-	public static ExtentReports prepareHtmlReport() {
+	public static ReportDispatcher getDispatcher() {
+		return Reports.DISPATCHER;
+	}
+
+	/**
+	 * Prepares the run results dir and the sinks of 'report.sinks', a comma
+	 * separated list of 'html', 'pdf', 'jsonl', 'junit' or 'none'. A report is
+	 * only created, if its sink is on, so without 'pdf' the pdf report costs
+	 * nothing. 'report.pdf=false' switches the pdf report off as well.
+	 *
+	 * @return the dispatcher
+	 */
+	private static ReportDispatcher prepareReports() {
 		runResultsDir = Paths.get("").toAbsolutePath().toString() + File.separatorChar + "RunResults";
-		deleteDirectory(runResultsDir);
+		RunResultsRetention.clear(Paths.get(runResultsDir));
 		createDirectories(runResultsDir + File.separatorChar + "Resources" + File.separatorChar + "Snapshots");
 
-		setHtmlReport(new ExtentReports());
-
-		// html report
-		ExtentSparkReporter spark = new ExtentSparkReporter(runResultsDir + File.separatorChar + "runresults.html");
-		spark.config().setEncoding("UTF-8");
-		getHtmlReport().attachReporter(spark);
+		List<ReportSink> sinks = new ArrayList<>();
+		for (String name : SINKS.toLowerCase().split("\\s*,\\s*")) {
+			switch (name.trim()) {
+			case "html":
+				sinks.add(new ExtentSink("html", prepareHtmlReport(), true, false));
+				break;
+			case "pdf":
+				if (!"false".equalsIgnoreCase(System.getProperty("report.pdf"))) {
+					sinks.add(new ExtentSink("pdf", preparePdfReport(), false, PDF_DEFERRED));
+				}
+				break;
+			case "jsonl":
+				if (RunLog.isEnabled()) {
+					sinks.add(new RunLog(Paths.get(runResultsDir)));
+				}
+				break;
+			case "junit":
+				sinks.add(new JUnitXmlSink(Paths.get(runResultsDir)));
+				break;
+			case "none":
+			case "":
+				break;
+			default:
+				logSelenium.warning(() -> "unknown report sink: " + name);
+				break;
+			}
+		}
+		ReportDispatcher dispatcher = new ReportDispatcher(sinks);
+		prepared = true;
+		return dispatcher;
+	}
 
+	/**
+	 * Resolves the host name.
+	 *
+	 * @return the host name, null if it can not be resolved
+	 */
+	private static String resolveHostName() {
 		try {
-			getHtmlReport().setSystemInfo("Hostname", java.net.InetAddress.getLocalHost().getHostName());
+			return java.net.InetAddress.getLocalHost().getHostName();
 		} catch (UnknownHostException e) {
 			logSelenium.finest(e.getMessage());
+			return null;
 		}
-		getHtmlReport().setSystemInfo("Operation System",
-				System.getProperty("os.name") + " " + System.getProperty("os.version"));
-		getHtmlReport().setSystemInfo("User", System.getProperty("user.name"));
-		return getHtmlReport();
+	}
+
+	/**
+	 * Sets the system info of a report.
+	 *
+	 * @param report the report
+	 */
+	private static void setSystemInfo(ExtentReports report) {
+		if (SystemInfo.HOSTNAME != null) {
+			report.setSystemInfo("Hostname", SystemInfo.HOSTNAME);
+		}
+		report.setSystemInfo("Operation System", SystemInfo.OS);
+		report.setSystemInfo("User", SystemInfo.USER);
+	}
+
+	/**
+	 * prepare the html report.
+	 *
+	 * @return the extent reports
+	 */
+	public static ExtentReports prepareHtmlReport() {
+		ExtentReports report = new ExtentReports();
+		setHtmlReport(report);
+
+		// html report
+		ExtentSparkReporter spark = new ExtentSparkReporter(runResultsDir + File.separatorChar + "runresults.html");
+		spark.config().setEncoding("UTF-8");
+		report.attachReporter(spark);
+
+		setSystemInfo(report);
+		return report;
 	}
 
 	/**
@@ -327,61 +466,45 @@ public class ExtentHelper {
 	 * @return the extent reports
 	 */
 	public static ExtentReports preparePdfReport() {
-		setPdfReport(new ExtentReports());
+		ExtentReports report = new ExtentReports();
+		setPdfReport(report);
 
 		// pdf report
 		ExtentPDFReporter pdfReport = new ExtentPDFReporter("RunResults/runresults.pdf");
 		pdfReport.config().setMediaFolders(new String[] { "RunResults/Resources/Snapshots" });
-		getPdfReport().attachReporter(pdfReport);
+		report.attachReporter(pdfReport);
 
-		try {
-			getPdfReport().setSystemInfo("Hostname", java.net.InetAddress.getLocalHost().getHostName());
-		} catch (UnknownHostException e) {
-			logSelenium.finest(e.getMessage());
-		}
-		getPdfReport().setSystemInfo("Operation System",
-				System.getProperty("os.name") + " " + System.getProperty("os.version"));
-		getPdfReport().setSystemInfo("User", System.getProperty("user.name"));
-		return getPdfReport();
+		setSystemInfo(report);
+		return report;
 	}
 
 	/**
-	 * Creates the directories.
+	 * Dispatches an event of the current session to the sinks.
 	 *
-	 * @param runResultsDir the run results dir
+	 * @param type       the type
+	 * @param status     the status, null for none
+	 * @param html       the html message
+	 * @param pdf        the pdf message
+	 * @param plain      the plain message
+	 * @param screenshot the screenshot path, null for none
 	 */
-	private static void createDirectories(String runResultsDir) {
-		try {
-			Files.createDirectories(Paths.get(runResultsDir));
-		} catch (IOException e) {
-			e.printStackTrace();
+	private static void dispatch(ReportEvent.Type type, Status status, String html, String pdf, String plain,
+			String screenshot) {
+		ReportDispatcher dispatcher = getDispatcher();
+		if (dispatcher.hasSinks()) {
+			dispatcher.dispatch(
+					new ReportEvent(type, status == null ? null : status.name(), html, pdf, plain, screenshot));
 		}
 	}
 
 	/**
-	 * Delete directory.
+	 * Creates the directories.
 	 *
-	 * @param path the path
+	 * @param runResultsDir the run results dir
 	 */
-	private static void deleteDirectory(String path) {
-		Path index = Paths.get(path);
-		if (!Files.exists(index)) {
-			try {
-				Files.createDirectories(index);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-		try (Stream<Path> stream = Files.walk(index);) {
-			// as the file tree is traversed depth-first and
-			// that deleted dirs have to be empty
-			stream.sorted(Comparator.reverseOrder()).forEach(t -> {
-				try {
-					Files.delete(t);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			});
+	private static void createDirectories(String runResultsDir) {
+		try {
+			Files.createDirectories(Paths.get(runResultsDir));
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -402,21 +525,20 @@ public class ExtentHelper {
 		setClicksCount(0);
 		setInputsCount(0);
 		setOutputsCount(0);
-		setHtmlTest(getHtmlReport().createTest("<b>" + replaceUmlaute(msg) + "</b>"));
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		setPdfTest(getPdfReport().createTest(replaceUmlaute(msg)));
+		ActionMetrics.resetTest();
+		ReportMessage rendered = ReportMessage.of(msg);
+		SessionContext.current().setTestName(rendered.getPlain());
+		SessionContext.current().setStepName(null);
+		dispatch(ReportEvent.Type.CREATE_TEST, null, "<b>" + rendered.getHtml() + "</b>", rendered.getPdf(),
+				rendered.getPlain(), null);
 		logExtent.info("##################");
-		logExtent.info("## " + msg);
+		logExtent.info("## " + rendered.getPlain());
 		logExtent.info("##################");
-		try {
-			logExtent.info("Hostname: " + java.net.InetAddress.getLocalHost().getHostName());
-		} catch (UnknownHostException e) {
-			logSelenium.finest(e.getMessage());
+		if (SystemInfo.HOSTNAME != null) {
+			logExtent.info("Hostname: " + SystemInfo.HOSTNAME);
 		}
-		logExtent.info("Operation System: " + System.getProperty("os.name") + " - " + System.getProperty("os.version"));
-		logExtent.info("User: " + System.getProperty("user.name"));
+		logExtent.info("Operation System: " + SystemInfo.OS_LOG);
+		logExtent.info("User: " + SystemInfo.USER);
 		logExtent.info("##################");
 	}
 
@@ -432,31 +554,30 @@ public class ExtentHelper {
 			newmsg = newmsg.replace("</b>", "");
 			newmsg = newmsg.replace("<br>", "");
 			if (isFailed()) {
-				getHtmlTest().log(Status.FAIL, replaceUmlaute(msg));
-				getPdfTest().log(Status.FAIL, replaceUmlaute(msg));
+				dispatch(ReportEvent.Type.TEST_LOG, Status.FAIL, replaceUmlaute(msg), replaceUmlaute(msg), newmsg, null);
 				logExtent.severe(newmsg);
 			} else {
-				getHtmlTest().log(Status.INFO, replaceUmlaute(msg));
-				getPdfTest().log(Status.INFO, replaceUmlaute(msg));
+				dispatch(ReportEvent.Type.TEST_LOG, Status.INFO, replaceUmlaute(msg), replaceUmlaute(msg), newmsg, null);
 				logExtent.info(newmsg);
 			}
 		}
 		if (isFailed()) {
-			getHtmlTest().log(Status.FAIL, "test failed");
-			getPdfTest().log(Status.FAIL, "test failed");
+			dispatch(ReportEvent.Type.TEST_LOG, Status.FAIL, "test failed", "test failed", "test failed", null);
 			logExtent.severe("test failed");
 		}
 		String countMsg = "# Actions ####################<br>" + "waits: " + WaitCount() + "<br>" + "clicks: "
 				+ getClicksCount() + "<br>" + "inputs: " + getInputsCount() + "<br>" + "outputs: " + getOutputsCount()
 				+ "<br>";
-		getHtmlTest().log(Status.INFO, countMsg);
-		countMsg = countMsg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		countMsg = countMsg.replaceAll("\\Wb\\W", "");
-		countMsg = countMsg.replaceAll("\\W/b\\W", "");
-		getPdfTest().log(Status.INFO, countMsg);
-		logExtent.info(countMsg);
-		getHtmlReport().flush();
-		getPdfReport().flush();
+		String timingMsg = ActionMetrics.getTestSummary();
+		if (!timingMsg.isEmpty()) {
+			countMsg += "# Timing #####################<br>" + timingMsg;
+		}
+		String plainCountMsg = ReportMessage.of(countMsg).getPlain();
+		dispatch(ReportEvent.Type.TEST_LOG, Status.INFO, countMsg, plainCountMsg, plainCountMsg, null);
+		logExtent.info(plainCountMsg);
+		String plain = msg == null ? null : ReportMessage.of(msg).getPlain();
+		dispatch(ReportEvent.Type.END_TEST, isFailed() ? Status.FAIL : Status.PASS, msg, msg, plain, null);
+		ReportFlusher.testEnded();
 	}
 
 	/**
@@ -465,12 +586,11 @@ public class ExtentHelper {
 	 * @param msg the msg
 	 */
 	public void reportTestFail(String msg) {
-		htmlTest.log(Status.FAIL, msg);
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		pdfTest.log(Status.FAIL, msg);
-		logExtent.severe(msg);
+		long begin = System.nanoTime();
+		String plain = ReportMessage.of(msg).getPlain();
+		dispatch(ReportEvent.Type.TEST_LOG, Status.FAIL, msg, plain, plain, null);
+		logExtent.severe(plain);
+		ActionMetrics.phase(Phase.REPORT, System.nanoTime() - begin);
 	}
 
 	/**
@@ -482,12 +602,11 @@ public class ExtentHelper {
 		if (isFailed()) {
 			return;
 		}
-		htmlTest.log(Status.PASS, msg);
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		pdfTest.log(Status.PASS, msg);
-		logExtent.info(msg);
+		long begin = System.nanoTime();
+		String plain = ReportMessage.of(msg).getPlain();
+		dispatch(ReportEvent.Type.TEST_LOG, Status.PASS, msg, plain, plain, null);
+		logExtent.info(plain);
+		ActionMetrics.phase(Phase.REPORT, System.nanoTime() - begin);
 	}
 
 	/**
@@ -500,12 +619,11 @@ public class ExtentHelper {
 		if (isFailed()) {
 			return;
 		}
-		htmlTest.log(Status.INFO, msg);
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		pdfTest.log(Status.INFO, msg);
-		logExtent.info(msg);
+		long begin = System.nanoTime();
+		String plain = ReportMessage.of(msg).getPlain();
+		dispatch(ReportEvent.Type.TEST_LOG, Status.INFO, msg, plain, plain, null);
+		logExtent.info(plain);
+		ActionMetrics.phase(Phase.REPORT, System.nanoTime() - begin);
 	}
 
 	/**
@@ -518,12 +636,11 @@ public class ExtentHelper {
 		if (isFailed()) {
 			return;
 		}
-		setHtmlNode(htmlTest.createNode("<b>" + replaceUmlaute(msg) + "</b>"));
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		setPdfNode(pdfTest.createNode(replaceUmlaute(msg)));
-		logExtent.info(msg);
+		ReportMessage rendered = ReportMessage.of(msg);
+		SessionContext.current().setStepName(rendered.getPlain());
+		dispatch(ReportEvent.Type.CREATE_STEP, null, "<b>" + rendered.getHtml() + "</b>", rendered.getPdf(),
+				rendered.getPlain(), null);
+		logExtent.info(rendered.getPlain());
 	}
 
 	/**
@@ -549,12 +666,12 @@ public class ExtentHelper {
 		if (isFailed()) {
 			return;
 		}
-		getHtmlNode().log(Status.INFO, replaceUmlaute(msg));
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		getPdfNode().log(Status.INFO, replaceUmlaute(msg));
-		logExtent.info(msg);
+		long begin = System.nanoTime();
+		ReportMessage rendered = ReportMessage.of(msg);
+		dispatch(ReportEvent.Type.STEP_LOG, Status.INFO, rendered.getHtml(), rendered.getPdf(), rendered.getPlain(),
+				null);
+		logExtent.info(rendered.getPlain());
+		ActionMetrics.phase(Phase.REPORT, System.nanoTime() - begin);
 	}
 
 	/**
@@ -567,12 +684,12 @@ public class ExtentHelper {
 		if (isFailed()) {
 			return;
 		}
-		getHtmlNode().log(Status.PASS, replaceUmlaute(msg));
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		getPdfNode().log(Status.PASS, replaceUmlaute(msg));
-		logExtent.info(msg);
+		long begin = System.nanoTime();
+		ReportMessage rendered = ReportMessage.of(msg);
+		dispatch(ReportEvent.Type.STEP_LOG, Status.PASS, rendered.getHtml(), rendered.getPdf(), rendered.getPlain(),
+				null);
+		logExtent.info(rendered.getPlain());
+		ActionMetrics.phase(Phase.REPORT, System.nanoTime() - begin);
 	}
 
 	/**
@@ -582,13 +699,13 @@ public class ExtentHelper {
 	 */
 	//@Override
 	public void reportStepFail(String msg) {
-		getHtmlNode().log(Status.FAIL, replaceUmlaute(msg));
-		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
-		msg = msg.replaceAll("\\Wb\\W", "");
-		msg = msg.replaceAll("\\W/b\\W", "");
-		getPdfNode().log(Status.FAIL, replaceUmlaute(msg));
-		logExtent.severe(msg);
+		long begin = System.nanoTime();
+		ReportMessage rendered = ReportMessage.of(msg);
+		dispatch(ReportEvent.Type.STEP_LOG, Status.FAIL, rendered.getHtml(), rendered.getPdf(), rendered.getPlain(),
+				null);
+		logExtent.severe(rendered.getPlain());
 		setFailed();
+		ActionMetrics.phase(Phase.REPORT, System.nanoTime() - begin);
 	}
 
 	/**
@@ -623,17 +740,11 @@ public class ExtentHelper {
 	 * @param s the s
 	 */
 	public void screenshotNode(String path, String title, Status s) {
-		// ExtentReport 5
-		try {
-			Media media = getHtmlNode()
-					.addScreenCaptureFromPath(path, title).getModel().getMedia().get(0);
-			getHtmlNode().getModel().getMedia().clear();
-			getHtmlNode().log(s, media);
-		} catch (Exception e) {
-			throw new CommonSeleniumException(e.getMessage());
-		}
+		long begin = System.nanoTime();
+		dispatch(ReportEvent.Type.SCREENSHOT, s, null, null, title, path);
+		ActionMetrics.phase(Phase.REPORT, System.nanoTime() - begin);
 	}
-	
+
 	/**
 	 * Screenshot getNode().
 	 *
@@ -641,22 +752,9 @@ public class ExtentHelper {
 	 * @param s          the s
 	 */
 	public void screenshotNode(String path, Status s) {
-		// ExtentReport 5
-		try {
-			Media media = getHtmlNode()
-					.addScreenCaptureFromPath(path).getModel().getMedia().get(0);
-			getHtmlNode().getModel().getMedia().clear();
-			getHtmlNode().log(s, media);
-		} catch (Exception e) {
-			throw new CommonSeleniumException(e.getMessage());
-		}
+		screenshotNode(path, null, s);
 	}
 
-	/** The umlaut replacements. */
-	private static String[][] UMLAUT_REPLACEMENTS = { { new String("Ä"), "&Auml;" }, { new String("Ü"), "&Uuml;" },
-			{ new String("Ö"), "&Ouml;" }, { new String("ä"), "&auml;" }, { new String("ü"), "&uuml;" },
-			{ new String("ö"), "&ouml;" }, { new String("ß"), "&szlig;" } };
-
 	/** The umlaut replacements2. */
 	@SuppressWarnings("unused")
 	private static String[][] UMLAUT_REPLACEMENTS2 = { { new String("Ä"), "Ae" }, { new String("Ü"), "Ue" },
@@ -670,13 +768,7 @@ public class ExtentHelper {
 	 * @return the string
 	 */
 	public static String replaceUmlaute(String orig) {
-		String result = orig;
-
-		for (int i = 0; i < UMLAUT_REPLACEMENTS.length; i++) {
-			result = result.replace(UMLAUT_REPLACEMENTS[i][0], UMLAUT_REPLACEMENTS[i][1]);
-		}
-
-		return result;
+		return ReportMessage.encodeUmlaute(orig);
 	}
 
 	/**
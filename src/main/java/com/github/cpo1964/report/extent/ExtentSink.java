@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import java.util.logging.Logger;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.model.Media;
+import com.github.cpo1964.platform.selenium.SessionContext;
+import com.github.cpo1964.report.ReportEvent;
+import com.github.cpo1964.report.ReportSink;
+
+/**
+ * The Class ExtentSink.
+ * <p>
+ * Writes the events to the html or the pdf report. The tests and steps are kept
+ * in the {@link SessionContext} of the reporting session, like before, so
+ * {@link ExtentHelper#getHtmlTest()} and the other getters still answer them.
+ * Screenshots are only added to the html report.
+ */
+public class ExtentSink implements ReportSink {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(ExtentSink.class.getSimpleName());
+
+	/** The name. */
+	private final String name;
+
+	/** The report. */
+	private final ExtentReports report;
+
+	/** The html flag, false for the pdf report. */
+	private final boolean html;
+
+	/** The deferred flag, to write the report only at the end of the run. */
+	private final boolean deferred;
+
+	/**
+	 * Instantiates a new extent sink.
+	 *
+	 * @param name     the name
+	 * @param report   the report
+	 * @param html     true for the html, false for the pdf report
+	 * @param deferred true to write the report only at the end of the run
+	 */
+	public ExtentSink(String name, ExtentReports report, boolean html, boolean deferred) {
+		this.name = name;
+		this.report = report;
+		this.html = html;
+		this.deferred = deferred;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the report.
+	 *
+	 * @return the report
+	 */
+	public ExtentReports getReport() {
+		return report;
+	}
+
+	@Override
+	public void accept(ReportEvent event) {
+		SessionContext context = event.getContext();
+		String msg = html ? event.getHtml() : event.getPdf();
+		switch (event.getType()) {
+		case CREATE_TEST:
+			ExtentTest test;
+			synchronized (report) {
+				test = report.createTest(msg);
+			}
+			setTest(context, test);
+			break;
+		case TEST_LOG:
+			log(getTest(context), event, msg);
+			break;
+		case CREATE_STEP:
+			if (getTest(context) != null) {
+				setNode(context, getTest(context).createNode(msg));
+			}
+			break;
+		case STEP_LOG:
+			log(getNode(context), event, msg);
+			break;
+		case SCREENSHOT:
+			if (html && getNode(context) != null) {
+				screenshot(getNode(context), event);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void flush(boolean last) {
+		if (last || !deferred) {
+			synchronized (report) {
+				report.flush();
+			}
+		}
+	}
+
+	/**
+	 * Logs a message to a test or step.
+	 *
+	 * @param test  the test or step, null if none is created
+	 * @param event the event
+	 * @param msg   the msg
+	 */
+	private void log(ExtentTest test, ReportEvent event, String msg) {
+		if (test == null) {
+			log.fine(() -> name + ": no test for " + event.getPlain());
+			return;
+		}
+		test.log(Status.valueOf(event.getStatus()), msg);
+	}
+
+	/**
+	 * Adds a screenshot to a step.
+	 *
+	 * @param node  the step
+	 * @param event the event
+	 */
+	private static void screenshot(ExtentTest node, ReportEvent event) {
+		// ExtentReport 5
+		String title = event.getPlain();
+		Media media = (title == null ? node.addScreenCaptureFromPath(event.getScreenshot())
+				: node.addScreenCaptureFromPath(event.getScreenshot(), title)).getModel().getMedia().get(0);
+		node.getModel().getMedia().clear();
+		node.log(Status.valueOf(event.getStatus()), media);
+	}
+
+	/**
+	 * Gets the test of a session.
+	 *
+	 * @param context the context
+	 * @return the test
+	 */
+	private ExtentTest getTest(SessionContext context) {
+		return html ? context.getHtmlTest() : context.getPdfTest();
+	}
+
+	/**
+	 * Sets the test of a session.
+	 *
+	 * @param context the context
+	 * @param test    the test
+	 */
+	private void setTest(SessionContext context, ExtentTest test) {
+		if (html) {
+			context.setHtmlTest(test);
+		} else {
+			context.setPdfTest(test);
+		}
+	}
+
+	/**
+	 * Gets the step of a session.
+	 *
+	 * @param context the context
+	 * @return the step
+	 */
+	private ExtentTest getNode(SessionContext context) {
+		return html ? context.getHtmlNode() : context.getPdfNode();
+	}
+
+	/**
+	 * Sets the step of a session.
+	 *
+	 * @param context the context
+	 * @param node    the step
+	 */
+	private void setNode(SessionContext context, ExtentTest node) {
+		if (html) {
+			context.setHtmlNode(node);
+		} else {
+			context.setPdfNode(node);
+		}
+	}
+}
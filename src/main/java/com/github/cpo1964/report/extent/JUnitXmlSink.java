@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.github.cpo1964.report.ReportEvent;
+import com.github.cpo1964.report.ReportSink;
+
+/**
+ * The Class JUnitXmlSink.
+ * <p>
+ * The sink 'junit', writes the ended tests as a JUnit xml test suite to
+ * 'RunResults/junit.xml', so CI servers can show them. A test failed, if it
+ * ended failed; its failure holds the messages reported with status FAIL. The
+ * file is replaced on every flush of the reports.
+ */
+public class JUnitXmlSink implements ReportSink {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(JUnitXmlSink.class.getSimpleName());
+
+	/** The file name. */
+	public static final String FILE = "junit.xml";
+
+	/** The suite name. */
+	private static final String SUITE = "RunResults";
+
+	/** The directory. */
+	private final Path dir;
+
+	/** The running tests by session. */
+	private final Map<Long, TestCase> running = new HashMap<>();
+
+	/** The ended tests. */
+	private final List<TestCase> ended = new ArrayList<>();
+
+	/** The flag for tests ended since the last write. */
+	private boolean dirty;
+
+	/**
+	 * Instantiates a new JUnit xml sink.
+	 *
+	 * @param dir the directory
+	 */
+	public JUnitXmlSink(Path dir) {
+		this.dir = dir;
+	}
+
+	@Override
+	public String getName() {
+		return "junit";
+	}
+
+	@Override
+	public void accept(ReportEvent event) {
+		TestCase test = running.get(event.getSession());
+		switch (event.getType()) {
+		case CREATE_TEST:
+			running.put(event.getSession(), new TestCase(event.getPlain(), event.getMillis()));
+			break;
+		case END_TEST:
+			if (test != null) {
+				running.remove(event.getSession());
+				test.end = event.getMillis();
+				test.failed = "FAIL".equals(event.getStatus());
+				ended.add(test);
+				dirty = true;
+			}
+			break;
+		default:
+			if (test != null && "FAIL".equals(event.getStatus())) {
+				String msg = event.getPlain() == null ? event.getScreenshot() : event.getPlain();
+				boolean step = event.getType() != ReportEvent.Type.TEST_LOG && event.getStepName() != null;
+				test.failures.add(step ? event.getStepName() + ": " + msg : msg);
+			}
+			break;
+		}
+	}
+
+	@Override
+	public void flush(boolean last) {
+		if (!dirty) {
+			return;
+		}
+		try {
+			write();
+			dirty = false;
+		} catch (IOException e) {
+			log.warning(() -> "writing the junit report failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the ended tests.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void write() throws IOException {
+		int failures = 0;
+		long start = Long.MAX_VALUE;
+		long end = 0;
+		for (TestCase test : ended) {
+			failures += test.failed ? 1 : 0;
+			start = Math.min(start, test.start);
+			end = Math.max(end, test.end);
+		}
+		Path tmp = Files.createTempFile(dir, "junit", ".tmp");
+		try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			out.write("<testsuite name=\"" + SUITE + "\" tests=\"" + ended.size() + "\" failures=\"" + failures
+					+ "\" errors=\"0\" skipped=\"0\" time=\"" + seconds(end - start) + "\" timestamp=\""
+					+ Instant.ofEpochMilli(start).toString().replaceFirst("\\.\\d+Z$|Z$", "") + "\">\n");
+			for (TestCase test : ended) {
+				out.write("  <testcase classname=\"" + SUITE + "\" name=\"" + escapeXml(test.name) + "\" time=\""
+						+ seconds(test.end - test.start) + "\"");
+				if (!test.failed) {
+					out.write("/>\n");
+					continue;
+				}
+				String first = test.failures.isEmpty() ? "test failed" : test.failures.get(0);
+				out.write(">\n    <failure message=\"" + escapeXml(first) + "\">"
+						+ escapeXml(String.join("\n", test.failures)) + "</failure>\n  </testcase>\n");
+			}
+			out.write("</testsuite>\n");
+		}
+		Files.move(tmp, dir.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Formats millis as seconds.
+	 *
+	 * @param millis the millis
+	 * @return the seconds
+	 */
+	private static String seconds(long millis) {
+		return String.format(Locale.ROOT, "%.3f", Math.max(0, millis) / 1000.0);
+	}
+
+	/**
+	 * Escapes a text for xml content and attributes.
+	 *
+	 * @param value the value
+	 * @return the escaped value
+	 */
+	private static String escapeXml(String value) {
+		if (value == null) {
+			return "";
+		}
+		StringBuilder bld = new StringBuilder(value.length() + 16);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '&':
+				bld.append("&amp;");
+				break;
+			case '<':
+				bld.append("&lt;");
+				break;
+			case '>':
+				bld.append("&gt;");
+				break;
+			case '"':
+				bld.append("&quot;");
+				break;
+			default:
+				if (c >= 0x20 || c == '\n' || c == '\t') {
+					bld.append(c);
+				}
+				break;
+			}
+		}
+		return bld.toString();
+	}
+
+	/**
+	 * A test.
+	 */
+	private static final class TestCase {
+
+		/** The name. */
+		private final String name;
+
+		/** The start millis. */
+		private final long start;
+
+		/** The end millis. */
+		private long end;
+
+		/** The failed flag. */
+		private boolean failed;
+
+		/** The failure messages. */
+		private final List<String> failures = new ArrayList<>();
+
+		/**
+		 * Instantiates a new test.
+		 *
+		 * @param name  the name
+		 * @param start the start millis
+		 */
+		TestCase(String name, long start) {
+			this.name = name;
+			this.start = start;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import com.github.cpo1964.utils.ActionMetrics;
+
+/**
+ * The Class ReportFlusher.
+ * <p>
+ * Decides when the report sinks are flushed. With 'report.flush=sync' (default)
+ * a flush is queued to the sinks at the end of every test, the sinks write on
+ * their own threads. With 'report.flush=batch' the flushes are coalesced and
+ * queued by a background thread, after 'report.flush.tests' ended tests
+ * (default 10) or at the latest every 'report.flush.seconds' (default 30)
+ * seconds.
+ * <p>
+ * With 'report.pdf.deferred=true' the pdf report is only generated at the end
+ * of the run. The final flush, waiting for all sinks, is done by a shutdown
+ * hook, which also writes the action metrics.
+ */
+public class ReportFlusher {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(ReportFlusher.class.getSimpleName());
+
+	/** The batch mode. */
+	private static final boolean BATCH = "batch".equalsIgnoreCase(System.getProperty("report.flush"));
+
+	/** The number of ended tests triggering a flush. */
+	private static final int TESTS = Math.max(1, Integer.getInteger("report.flush.tests", 10));
+
+	/** The maximal seconds between two flushes. */
+	private static final int SECONDS = Math.max(1, Integer.getInteger("report.flush.seconds", 30));
+
+	/** The tests ended since the last flush. */
+	private static final AtomicInteger ended = new AtomicInteger();
+
+	/** The flag for a queued flush. */
+	private static final AtomicBoolean queued = new AtomicBoolean();
+
+	/** The flusher, only created in batch mode. */
+	private static final ScheduledExecutorService flusher;
+
+	static {
+		if (BATCH) {
+			flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "report-flusher");
+				t.setDaemon(true);
+				return t;
+			});
+			flusher.scheduleWithFixedDelay(ReportFlusher::flushIfDirty, SECONDS, SECONDS, TimeUnit.SECONDS);
+		} else {
+			flusher = null;
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(ReportFlusher::finish, "report-final-flush"));
+	}
+
+	/**
+	 * Instantiates a new report flusher.
+	 */
+	private ReportFlusher() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Called at the end of every test.
+	 */
+	public static void testEnded() {
+		ended.incrementAndGet();
+		if (!BATCH) {
+			flush(false);
+		} else if (ended.get() >= TESTS && queued.compareAndSet(false, true)) {
+			flusher.execute(ReportFlusher::flushIfDirty);
+		}
+	}
+
+	/**
+	 * Flushes both reports at once, e.g. at the end of a suite.
+	 */
+	public static void flushNow() {
+		flush(true);
+	}
+
+	/**
+	 * Flushes, if tests have ended since the last flush.
+	 */
+	private static void flushIfDirty() {
+		queued.set(false);
+		if (ended.get() > 0) {
+			try {
+				flush(false);
+			} catch (RuntimeException e) {
+				log.warning(() -> "flushing the reports failed: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * The final flush.
+	 */
+	private static void finish() {
+		if (flusher != null) {
+			flusher.shutdown();
+			try {
+				flusher.awaitTermination(SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		flush(true);
+		// nothing to write, if nothing was reported
+		if (ExtentHelper.isPrepared()) {
+			try {
+				ActionMetrics.write(Paths.get(ExtentHelper.getRunResultsDir()));
+			} catch (IOException e) {
+				log.warning(() -> "writing the metrics failed: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Flushes the reports.
+	 *
+	 * @param last true for the end of the run, waits until the sinks are flushed
+	 */
+	private static void flush(boolean last) {
+		ended.set(0);
+		// the reports reference the snapshots, so they have to be written before
+		ScreenshotWriter.drain();
+		if (ExtentHelper.isPrepared()) {
+			ExtentHelper.getDispatcher().flush(last, last);
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+/**
+ * The Class ReportMessage.
+ * <p>
+ * Renders a report message in one scan into its three variants:
+ * <ul>
+ * <li>html: umlauts replaced by html entities, markup kept</li>
+ * <li>plain: markup removed ('&lt;br&gt;' becomes a line separator, '&lt;b&gt;'
+ * and '&lt;/b&gt;' are dropped) - used for the log</li>
+ * <li>pdf: the plain variant with umlauts replaced by html entities</li>
+ * </ul>
+ * A tag is 'br', 'b' or '/b' enclosed by non word characters (as the former
+ * regular expressions '\Wbr\W', '\Wb\W' and '\W/b\W'), the whole tag including
+ * both delimiters is replaced.
+ */
+public final class ReportMessage {
+
+	/** The line separator. */
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	/** The html. */
+	private final String html;
+
+	/** The plain. */
+	private final String plain;
+
+	/** The pdf. */
+	private final String pdf;
+
+	/**
+	 * Instantiates a new report message.
+	 *
+	 * @param html  the html
+	 * @param plain the plain
+	 * @param pdf   the pdf
+	 */
+	private ReportMessage(String html, String plain, String pdf) {
+		this.html = html;
+		this.plain = plain;
+		this.pdf = pdf;
+	}
+
+	/**
+	 * Renders a message.
+	 *
+	 * @param msg the msg
+	 * @return the report message
+	 */
+	public static ReportMessage of(String msg) {
+		if (!needsRendering(msg)) {
+			return new ReportMessage(msg, msg, msg);
+		}
+		int n = msg.length();
+		StringBuilder html = new StringBuilder(n + 16);
+		StringBuilder plain = new StringBuilder(n);
+		StringBuilder pdf = new StringBuilder(n + 16);
+		int i = 0;
+		while (i < n) {
+			int markup = isWordChar(msg.charAt(i)) ? 0 : markupLength(msg, i);
+			if (markup == 0) {
+				char c = msg.charAt(i);
+				appendEncoded(html, c);
+				plain.append(c);
+				appendEncoded(pdf, c);
+				i++;
+			} else {
+				if (markup == 4 && msg.charAt(i + 1) == 'b') {
+					plain.append(LINE_SEPARATOR);
+					pdf.append(LINE_SEPARATOR);
+				}
+				for (int end = i + markup; i < end; i++) {
+					appendEncoded(html, msg.charAt(i));
+				}
+			}
+		}
+		return new ReportMessage(html.toString(), plain.toString(), pdf.toString());
+	}
+
+	/**
+	 * Replaces the umlauts by html entities.
+	 *
+	 * @param msg the msg
+	 * @return the encoded msg
+	 */
+	public static String encodeUmlaute(String msg) {
+		int n = msg.length();
+		int i = 0;
+		while (i < n && encode(msg.charAt(i)) == null) {
+			i++;
+		}
+		if (i == n) {
+			return msg;
+		}
+		StringBuilder bld = new StringBuilder(n + 16).append(msg, 0, i);
+		for (; i < n; i++) {
+			appendEncoded(bld, msg.charAt(i));
+		}
+		return bld.toString();
+	}
+
+	/**
+	 * Gets the html variant.
+	 *
+	 * @return the html
+	 */
+	public String getHtml() {
+		return html;
+	}
+
+	/**
+	 * Gets the plain variant.
+	 *
+	 * @return the plain
+	 */
+	public String getPlain() {
+		return plain;
+	}
+
+	/**
+	 * Gets the pdf variant.
+	 *
+	 * @return the pdf
+	 */
+	public String getPdf() {
+		return pdf;
+	}
+
+	/**
+	 * Checks if the message contains an umlaut or a possible tag.
+	 *
+	 * @param msg the msg
+	 * @return true, if rendering is needed
+	 */
+	private static boolean needsRendering(String msg) {
+		for (int i = 0, n = msg.length(); i < n; i++) {
+			char c = msg.charAt(i);
+			if (encode(c) != null || c == 'b' && i > 0 && !isWordChar(msg.charAt(i - 1))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the length of the tag starting at the non word character at pos.
+	 *
+	 * @param msg the msg
+	 * @param pos the pos
+	 * @return 4 for '\Wbr\W' and '\W/b\W', 3 for '\Wb\W', otherwise 0
+	 */
+	private static int markupLength(String msg, int pos) {
+		int n = msg.length();
+		if (pos + 2 < n && msg.charAt(pos + 1) == 'b') {
+			if (pos + 3 < n && msg.charAt(pos + 2) == 'r' && !isWordChar(msg.charAt(pos + 3))) {
+				return 4;
+			}
+			if (!isWordChar(msg.charAt(pos + 2))) {
+				return 3;
+			}
+		} else if (pos + 3 < n && msg.charAt(pos + 1) == '/' && msg.charAt(pos + 2) == 'b'
+				&& !isWordChar(msg.charAt(pos + 3))) {
+			return 4;
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks if is a word character in the sense of the regular expression '\w'.
+	 *
+	 * @param c the c
+	 * @return true, if is word char
+	 */
+	private static boolean isWordChar(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+	}
+
+	/**
+	 * Appends a character, umlauts encoded.
+	 *
+	 * @param bld the bld
+	 * @param c   the c
+	 */
+	private static void appendEncoded(StringBuilder bld, char c) {
+		String entity = encode(c);
+		if (entity == null) {
+			bld.append(c);
+		} else {
+			bld.append(entity);
+		}
+	}
+
+	/**
+	 * Gets the html entity of an umlaut.
+	 *
+	 * @param c the c
+	 * @return the entity or null, if no umlaut
+	 */
+	private static String encode(char c) {
+		switch (c) {
+		case 'Ä':
+			return "&Auml;";
+		case 'Ü':
+			return "&Uuml;";
+		case 'Ö':
+			return "&Ouml;";
+		case 'ä':
+			return "&auml;";
+		case 'ü':
+			return "&uuml;";
+		case 'ö':
+			return "&ouml;";
+		case 'ß':
+			return "&szlig;";
+		default:
+			return null;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.logging.Logger;
+
+import com.github.cpo1964.report.ReportEvent;
+import com.github.cpo1964.report.ReportSink;
+import com.github.cpo1964.utils.CommonHelper;
+
+/**
+ * The Class RunLog.
+ * <p>
+ * The sink 'jsonl', appends every report event as one json line to
+ * 'RunResults/runlog.jsonl', with the fields ts, thread, session, test, step,
+ * event, status, message, action, locator, duration_ms (of the running action)
+ * and screenshot; empty fields are left out. The events are createTest,
+ * endTest, createStep, log and screenshot.
+ * <p>
+ * The lines are collected in a buffer of 'report.runlog.buffer' bytes (default
+ * 64 KB) and appended through a FileChannel when it is full and on every flush
+ * of the reports. Switched off by 'report.runlog=false'.
+ */
+public class RunLog implements ReportSink {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(RunLog.class.getSimpleName());
+
+	/** The file name. */
+	public static final String FILE = "runlog.jsonl";
+
+	/** The enabled flag. */
+	private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("report.runlog"));
+
+	/** The buffer size. */
+	private static final int BUFFER_SIZE = Math.max(1024, Integer.getInteger("report.runlog.buffer", 64 * 1024));
+
+	/** The directory. */
+	private final Path dir;
+
+	/** The buffer, created on first use. */
+	private ByteBuffer buffer;
+
+	/** The channel, opened on first write. */
+	private FileChannel channel;
+
+	/** The failed flag, set when the file can not be written. */
+	private boolean failed;
+
+	/**
+	 * Instantiates a new run log.
+	 *
+	 * @param dir the directory
+	 */
+	public RunLog(Path dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Checks if the run log is enabled.
+	 *
+	 * @return true, if enabled
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	@Override
+	public String getName() {
+		return "jsonl";
+	}
+
+	@Override
+	public void accept(ReportEvent event) {
+		StringBuilder line = new StringBuilder(256);
+		line.append("{\"ts\":\"").append(Instant.ofEpochMilli(event.getMillis())).append('"');
+		field(line, "thread", event.getThread());
+		line.append(",\"session\":").append(event.getSession());
+		field(line, "test", event.getTestName());
+		field(line, "step", event.getStepName());
+		field(line, "event", eventName(event.getType()));
+		field(line, "status", event.getStatus());
+		field(line, "message", event.getPlain());
+		if (event.getAction() != null) {
+			field(line, "action", event.getAction().name());
+			field(line, "locator", event.getLocator());
+			line.append(",\"duration_ms\":").append(Math.round(event.getActionNanos() / 1000.0) / 1000.0);
+		}
+		field(line, "screenshot", event.getScreenshot());
+		line.append("}\n");
+		append(line.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Gets the name of an event type.
+	 *
+	 * @param type the type
+	 * @return the name
+	 */
+	private static String eventName(ReportEvent.Type type) {
+		switch (type) {
+		case CREATE_TEST:
+			return "createTest";
+		case END_TEST:
+			return "endTest";
+		case CREATE_STEP:
+			return "createStep";
+		case SCREENSHOT:
+			return "screenshot";
+		default:
+			return "log";
+		}
+	}
+
+	/**
+	 * Appends a string field, if the value is not empty.
+	 *
+	 * @param line  the line
+	 * @param name  the name
+	 * @param value the value
+	 */
+	private static void field(StringBuilder line, String name, String value) {
+		if (value != null && !value.isEmpty()) {
+			line.append(",\"").append(name).append("\":\"").append(CommonHelper.escapeJson(value)).append('"');
+		}
+	}
+
+	/**
+	 * Appends the bytes of a line to the buffer.
+	 *
+	 * @param bytes the bytes
+	 */
+	private void append(byte[] bytes) {
+		if (failed) {
+			return;
+		}
+		if (buffer == null) {
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+		if (bytes.length > buffer.remaining()) {
+			write();
+		}
+		if (bytes.length > buffer.remaining()) {
+			writeFully(ByteBuffer.wrap(bytes));
+		} else {
+			buffer.put(bytes);
+		}
+	}
+
+	/**
+	 * Appends the buffered lines to the file and closes it at the end of the run,
+	 * a later event opens it again.
+	 *
+	 * @param last true for the end of the run
+	 */
+	@Override
+	public void flush(boolean last) {
+		if (buffer != null && buffer.position() > 0) {
+			write();
+		}
+		if (last && channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				log.fine(e.getMessage());
+			}
+			channel = null;
+		}
+	}
+
+	/**
+	 * Writes and clears the buffer.
+	 */
+	private void write() {
+		buffer.flip();
+		writeFully(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes bytes to the channel, opened on the first write.
+	 *
+	 * @param bytes the bytes
+	 */
+	private void writeFully(ByteBuffer bytes) {
+		try {
+			if (channel == null) {
+				channel = FileChannel.open(dir.resolve(FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.APPEND);
+			}
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		} catch (IOException e) {
+			failed = true;
+			log.warning(() -> "writing the run log failed: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The Class RunResultsRetention.
+ * <p>
+ * Clears the run results of the previous run before a new run starts. With
+ * 'report.retention=delete' (default) the directory is deleted on the
+ * starting thread. With 'report.retention=rotate' it is renamed to
+ * 'RunResults.&lt;yyyyMMdd-HHmmss&gt;' at once and the new run starts
+ * immediately, while a background thread deletes all such folders except the
+ * newest 'report.retention.keep' (default 0). A folder not deleted at the end
+ * of a run is deleted by the next one. Only folders named like the rotated
+ * ones are considered, others like 'RunResults.backup' are left alone.
+ */
+public class RunResultsRetention {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(RunResultsRetention.class.getSimpleName());
+
+	/** The rotate mode. */
+	private static final boolean ROTATE = "rotate".equalsIgnoreCase(System.getProperty("report.retention"));
+
+	/** The number of old runs to keep. */
+	private static final int KEEP = Math.max(0, Integer.getInteger("report.retention.keep", 0));
+
+	/** The timestamp format of the old runs. */
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	/** The suffix of the old runs, the timestamp and a counter. */
+	private static final Pattern SUFFIX = Pattern.compile("(\\d{8}-\\d{6})(?:-(\\d+))?");
+
+	/**
+	 * Instantiates a new run results retention.
+	 */
+	private RunResultsRetention() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Clears the run results of the previous run.
+	 *
+	 * @param dir the run results dir
+	 */
+	public static void clear(Path dir) {
+		if (!Files.exists(dir)) {
+			if (ROTATE) {
+				cleanUp(dir);
+			}
+			return;
+		}
+		if (ROTATE && rotate(dir)) {
+			cleanUp(dir);
+		} else {
+			delete(dir);
+		}
+	}
+
+	/**
+	 * Renames the run results dir to a timestamped folder.
+	 *
+	 * @param dir the run results dir
+	 * @return true, if renamed
+	 */
+	private static boolean rotate(Path dir) {
+		String name = dir.getFileName() + "." + LocalDateTime.now().format(TIMESTAMP);
+		for (int i = 1; i < 100; i++) {
+			Path target = dir.resolveSibling(i == 1 ? name : name + "-" + i);
+			try {
+				Files.move(dir, target, StandardCopyOption.ATOMIC_MOVE);
+				return true;
+			} catch (FileAlreadyExistsException e) {
+				// rotated twice in a second, try the next name
+			} catch (IOException | UnsupportedOperationException e) {
+				log.warning(() -> "renaming " + dir + " failed, it is deleted: " + e);
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Deletes the old runs except the newest ones to keep on a background thread.
+	 *
+	 * @param dir the run results dir
+	 */
+	private static void cleanUp(Path dir) {
+		List<OldRun> old = new ArrayList<>();
+		String prefix = dir.getFileName() + ".";
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toAbsolutePath().getParent(),
+				p -> p.getFileName().toString().startsWith(prefix) && Files.isDirectory(p))) {
+			for (Path p : stream) {
+				OldRun run = OldRun.of(p, p.getFileName().toString().substring(prefix.length()));
+				if (run != null) {
+					old.add(run);
+				}
+			}
+		} catch (IOException e) {
+			log.warning(() -> "listing the old run results failed: " + e.getMessage());
+			return;
+		}
+		if (old.size() <= KEEP) {
+			return;
+		}
+		// the newest last
+		old.sort(Comparator.comparing((OldRun r) -> r.timestamp).thenComparingInt(r -> r.counter));
+		List<OldRun> expired = old.subList(0, old.size() - KEEP);
+		Thread cleaner = new Thread(() -> expired.forEach(r -> delete(r.path)), "runresults-cleaner");
+		cleaner.setDaemon(true);
+		cleaner.setPriority(Thread.MIN_PRIORITY);
+		cleaner.start();
+	}
+
+	/**
+	 * Deletes a directory with all its content.
+	 *
+	 * @param dir the directory
+	 */
+	static void delete(Path dir) {
+		try (Stream<Path> stream = Files.walk(dir)) {
+			// as the file tree is traversed depth-first and
+			// that deleted dirs have to be empty
+			stream.sorted(Comparator.reverseOrder()).forEach(t -> {
+				try {
+					Files.delete(t);
+				} catch (IOException e) {
+					log.warning(() -> "deleting " + t + " failed: " + e.getMessage());
+				}
+			});
+		} catch (IOException e) {
+			log.warning(() -> "deleting " + dir + " failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * A rotated run.
+	 */
+	private static final class OldRun {
+
+		/** The path. */
+		private final Path path;
+
+		/** The timestamp. */
+		private final LocalDateTime timestamp;
+
+		/** The counter of runs rotated in the same second. */
+		private final int counter;
+
+		/**
+		 * Instantiates a new old run.
+		 *
+		 * @param path      the path
+		 * @param timestamp the timestamp
+		 * @param counter   the counter
+		 */
+		private OldRun(Path path, LocalDateTime timestamp, int counter) {
+			this.path = path;
+			this.timestamp = timestamp;
+			this.counter = counter;
+		}
+
+		/**
+		 * Parses the suffix of a rotated run.
+		 *
+		 * @param path   the path
+		 * @param suffix the suffix after 'RunResults.'
+		 * @return the old run, null if the folder was not rotated
+		 */
+		static OldRun of(Path path, String suffix) {
+			Matcher m = SUFFIX.matcher(suffix);
+			if (!m.matches()) {
+				return null;
+			}
+			try {
+				return new OldRun(path, LocalDateTime.parse(m.group(1), TIMESTAMP),
+						m.group(2) == null ? 1 : Integer.parseInt(m.group(2)));
+			} catch (DateTimeParseException | NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The Class ScreenshotWriter.
+ * <p>
+ * Writes the screenshots of the test threads in the background into
+ * 'RunResults/Resources/Snapshots', so the test thread only pays for the
+ * WebDriver round trip. The relative path is returned at once, the file exists
+ * latest after {@link #drain()}.
+ * <p>
+ * Configured by the system properties 'screenshot.format' (png or jpg, default
+ * png), 'screenshot.scale' (default 1.0), 'screenshot.queue' (default 32),
+ * 'screenshot.policy' (block or callerRuns, default block) and
+ * 'screenshot.dedup' (default true). Both policies never lose a screenshot:
+ * 'block' makes the test thread wait for a free queue slot, 'callerRuns'
+ * writes the screenshot on the test thread if the queue is full.
+ */
+public class ScreenshotWriter {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(ScreenshotWriter.class.getSimpleName());
+
+	/** The Constant SNAPSHOTS. */
+	public static final String SNAPSHOTS = "Resources" + File.separator + "Snapshots";
+
+	/** The format. */
+	private static final String FORMAT = "jpg".equalsIgnoreCase(System.getProperty("screenshot.format")) ? "jpg"
+			: "png";
+
+	/** The scale. */
+	private static final double SCALE = Double.parseDouble(System.getProperty("screenshot.scale", "1.0"));
+
+	/** The caller runs policy. */
+	private static final boolean CALLER_RUNS = "callerRuns".equalsIgnoreCase(System.getProperty("screenshot.policy"));
+
+	/** The dedup flag. */
+	private static final boolean DEDUP = !"false".equalsIgnoreCase(System.getProperty("screenshot.dedup"));
+
+	/** The queue. */
+	private static final BlockingQueue<Job> QUEUE = new ArrayBlockingQueue<>(
+			Math.max(1, Integer.getInteger("screenshot.queue", 32)));
+
+	/** The sequence for unique file names. */
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	/** The last frame of the thread, for deduplication. */
+	private static final ThreadLocal<Job> LAST = new ThreadLocal<>();
+
+	/** The lock guarding pending. */
+	private static final Object LOCK = new Object();
+
+	/** The submitted but not yet written screenshots. */
+	private static int pending;
+
+	static {
+		Thread writer = new Thread(ScreenshotWriter::run, "screenshot-writer");
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(ScreenshotWriter::drain, "screenshot-drain"));
+	}
+
+	/**
+	 * Instantiates a new screenshot writer.
+	 */
+	private ScreenshotWriter() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Submits a screenshot.
+	 *
+	 * @param png the screenshot as png
+	 * @return the path relative to 'RunResults'
+	 */
+	public static String submit(byte[] png) {
+		// the run results have to be prepared before, as they are cleared then
+		ExtentHelper.getRunResultsDir();
+		Job last = LAST.get();
+		if (DEDUP && last != null && Arrays.equals(last.png, png)) {
+			return last.path;
+		}
+		String fileName = System.currentTimeMillis() + "_" + SEQUENCE.incrementAndGet() + "." + FORMAT;
+		Job job = new Job(png, SNAPSHOTS + File.separator + fileName);
+		LAST.set(job);
+		synchronized (LOCK) {
+			pending++;
+		}
+		if (CALLER_RUNS) {
+			if (!QUEUE.offer(job)) {
+				write(job);
+			}
+		} else {
+			try {
+				QUEUE.put(job);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				write(job);
+			}
+		}
+		return job.path;
+	}
+
+	/**
+	 * Waits until all submitted screenshots are written.
+	 */
+	public static void drain() {
+		synchronized (LOCK) {
+			while (pending > 0) {
+				try {
+					LOCK.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The writer loop.
+	 */
+	private static void run() {
+		while (true) {
+			try {
+				write(QUEUE.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Throwable e) {
+				// e.g. an OutOfMemoryError decoding a large screenshot, the writer has to
+				// survive it, otherwise the pending screenshots are never drained
+				log.severe(() -> "writing a screenshot failed: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Writes a screenshot.
+	 *
+	 * @param job the job
+	 */
+	private static void write(Job job) {
+		try {
+			Path target = Paths.get("").toAbsolutePath().resolve("RunResults").resolve(job.path);
+			Files.createDirectories(target.getParent());
+			if ("png".equals(FORMAT) && SCALE >= 1.0) {
+				Files.write(target, job.png);
+			} else {
+				ImageIO.write(encode(job.png), FORMAT, target.toFile());
+			}
+		} catch (IOException | RuntimeException e) {
+			log.warning(() -> "writing screenshot " + job.path + " failed: " + e.getMessage());
+		} finally {
+			synchronized (LOCK) {
+				pending--;
+				LOCK.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Scales the screenshot and converts it to rgb, as jpg has no alpha channel.
+	 *
+	 * @param png the png
+	 * @return the image
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static BufferedImage encode(byte[] png) throws IOException {
+		BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+		double scale = Math.min(1.0, SCALE);
+		int width = Math.max(1, (int) (source.getWidth() * scale));
+		int height = Math.max(1, (int) (source.getHeight() * scale));
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(source, 0, 0, width, height, null);
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	/**
+	 * A submitted screenshot.
+	 */
+	private static final class Job {
+
+		/** The png. */
+		private final byte[] png;
+
+		/** The path relative to 'RunResults'. */
+		private final String path;
+
+		/**
+		 * Instantiates a new job.
+		 *
+		 * @param png  the png
+		 * @param path the path
+		 */
+		Job(byte[] png, String path) {
+			this.png = png;
+			this.path = path;
+		}
+	}
+}
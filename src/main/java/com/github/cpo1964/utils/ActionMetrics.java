@@ -0,0 +1,476 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The Class ActionMetrics.
+ * <p>
+ * Records the latency of every action of the SeleniumHelper in HDR histograms
+ * per action and phase and per locator. The phases locate, wait, report and
+ * screenshot are measured where they happen, act is the rest of the action.
+ * An action started inside another one, e.g. the wait of a click, is counted
+ * as a part of the outer action.
+ * <p>
+ * The actions of the current test are summarised in the report footer, the
+ * histograms are written to 'metrics.json' and 'metrics.csv' at the end of the
+ * run and are available through the MBean 'com.github.cpo1964:type=ActionMetrics'.
+ */
+public final class ActionMetrics implements ActionMetricsMBean {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(ActionMetrics.class.getSimpleName());
+
+	/** The name of the MBean. */
+	public static final String OBJECT_NAME = "com.github.cpo1964:type=ActionMetrics";
+
+	/**
+	 * The actions.
+	 */
+	public enum Action {
+		NAVIGATE, WAIT, CLICK, INPUT, OUTPUT, QUERY, VALIDATE, DRAGANDDROP
+	}
+
+	/**
+	 * The phases of an action, total is the whole action.
+	 */
+	public enum Phase {
+		LOCATE, WAIT, ACT, REPORT, SCREENSHOT, TOTAL
+	}
+
+	/** The instance registered as MBean. */
+	private static final ActionMetrics INSTANCE = new ActionMetrics();
+
+	/** The histograms in micros by action and phase. */
+	private static final Map<Action, Map<Phase, Histogram>> ACTIONS = new EnumMap<>(Action.class);
+
+	/** The histograms in micros of the total by locator. */
+	private static final Map<String, Histogram> LOCATORS = new ConcurrentHashMap<>();
+
+	/** The running action of the thread. */
+	private static final ThreadLocal<Timer> CURRENT = new ThreadLocal<>();
+
+	/** The actions of the current test of the thread, count, total and max nanos. */
+	private static final ThreadLocal<Map<Action, long[]>> TEST = ThreadLocal
+			.withInitial(() -> new EnumMap<>(Action.class));
+
+	static {
+		for (Action action : Action.values()) {
+			Map<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+			for (Phase phase : Phase.values()) {
+				phases.put(phase, new ConcurrentHistogram(3));
+			}
+			ACTIONS.put(action, phases);
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+		} catch (JMException | SecurityException e) {
+			log.fine(() -> "MBean not registered: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Instantiates a new action metrics, there is one instance for the MBean.
+	 */
+	private ActionMetrics() {
+	}
+
+	/**
+	 * Starts an action on the current thread, if no action is running.
+	 *
+	 * @param action  the action
+	 * @param locator the locator, null for none
+	 * @return true, if the action was started and has to be ended by
+	 *         {@link #end(boolean)}
+	 */
+	public static boolean begin(Action action, String locator) {
+		if (CURRENT.get() != null) {
+			return false;
+		}
+		CURRENT.set(new Timer(action, locator));
+		return true;
+	}
+
+	/**
+	 * Adds the nanos of a phase to the running action, does nothing without one.
+	 *
+	 * @param phase the phase, not act or total
+	 * @param nanos the nanos
+	 */
+	public static void phase(Phase phase, long nanos) {
+		Timer timer = CURRENT.get();
+		if (timer != null && nanos > 0) {
+			timer.nanos[phase.ordinal()] += nanos;
+		}
+	}
+
+	/**
+	 * Ends the running action and records it.
+	 *
+	 * @param started the answer of {@link #begin(Action, String)}, nothing is
+	 *                done for false
+	 */
+	public static void end(boolean started) {
+		Timer timer = CURRENT.get();
+		if (!started || timer == null) {
+			return;
+		}
+		CURRENT.remove();
+		long total = System.nanoTime() - timer.start;
+		long act = total;
+		Map<Phase, Histogram> phases = ACTIONS.get(timer.action);
+		for (Phase phase : Phase.values()) {
+			if (phase != Phase.ACT && phase != Phase.TOTAL && timer.nanos[phase.ordinal()] > 0) {
+				act -= timer.nanos[phase.ordinal()];
+				record(phases.get(phase), timer.nanos[phase.ordinal()]);
+			}
+		}
+		record(phases.get(Phase.ACT), Math.max(0, act));
+		record(phases.get(Phase.TOTAL), total);
+		if (timer.locator != null) {
+			record(LOCATORS.computeIfAbsent(timer.locator, k -> new ConcurrentHistogram(3)), total);
+		}
+		long[] test = TEST.get().computeIfAbsent(timer.action, k -> new long[3]);
+		test[0]++;
+		test[1] += total;
+		test[2] = Math.max(test[2], total);
+	}
+
+	/**
+	 * Gets the locator of the running action of the current thread.
+	 *
+	 * @return the locator or null
+	 */
+	public static String getCurrentLocator() {
+		Timer timer = CURRENT.get();
+		return timer == null ? null : timer.locator;
+	}
+
+	/**
+	 * Gets the action running on the current thread.
+	 *
+	 * @return the action or null
+	 */
+	public static Action getCurrentAction() {
+		Timer timer = CURRENT.get();
+		return timer == null ? null : timer.action;
+	}
+
+	/**
+	 * Gets the nanos since the running action of the current thread started.
+	 *
+	 * @return the nanos or -1, if no action is running
+	 */
+	public static long getCurrentNanos() {
+		Timer timer = CURRENT.get();
+		return timer == null ? -1 : System.nanoTime() - timer.start;
+	}
+
+	/**
+	 * Resets the actions of the current test of the thread.
+	 */
+	public static void resetTest() {
+		TEST.get().clear();
+	}
+
+	/**
+	 * Gets the summary of the actions of the current test of the thread, one
+	 * line per action.
+	 *
+	 * @return the summary with html line breaks
+	 */
+	public static String getTestSummary() {
+		StringBuilder bld = new StringBuilder();
+		for (Map.Entry<Action, long[]> e : TEST.get().entrySet()) {
+			long[] test = e.getValue();
+			bld.append(e.getKey().name().toLowerCase()).append(": ").append(test[0]).append(" in ")
+					.append(millis(test[1])).append(" ms, max ").append(millis(test[2])).append(" ms<br>");
+		}
+		return bld.toString();
+	}
+
+	/**
+	 * Gets a percentile of an action phase.
+	 *
+	 * @param action     the action
+	 * @param phase      the phase
+	 * @param percentile the percentile, e.g. 99.0
+	 * @return the millis
+	 */
+	public static double getMillis(Action action, Phase phase, double percentile) {
+		return ACTIONS.get(action).get(phase).getValueAtPercentile(percentile) / 1000.0;
+	}
+
+	/**
+	 * Writes 'metrics.json' and 'metrics.csv' into a directory, each atomically
+	 * through a temporary file.
+	 *
+	 * @param dir the directory
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void write(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		List<Row> rows = rows();
+		Path json = Files.createTempFile(dir, "metrics", ".tmp");
+		try (Writer out = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+			out.write("{\"rows\":[");
+			for (int i = 0; i < rows.size(); i++) {
+				Row row = rows.get(i);
+				out.write(i == 0 ? "\n" : ",\n");
+				out.write("{\"scope\":\"" + row.scope + "\",\"name\":\"" + CommonHelper.escapeJson(row.name) + "\",\"phase\":\""
+						+ row.phase + "\",\"count\":" + row.histogram.getTotalCount());
+				for (int j = 0; j < Row.COLUMNS.length; j++) {
+					out.write(",\"" + Row.COLUMNS[j] + "\":" + row.value(j));
+				}
+				out.write("}");
+			}
+			out.write("\n]}\n");
+		}
+		Files.move(json, dir.resolve("metrics.json"), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		Path csv = Files.createTempFile(dir, "metrics", ".tmp");
+		try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+			out.write("scope,name,phase,count");
+			for (String column : Row.COLUMNS) {
+				out.write("," + column);
+			}
+			out.write("\n");
+			for (Row row : rows) {
+				out.write(row.scope + ",\"" + row.name.replace("\"", "\"\"") + "\"," + row.phase + ","
+						+ row.histogram.getTotalCount());
+				for (int j = 0; j < Row.COLUMNS.length; j++) {
+					out.write("," + row.value(j));
+				}
+				out.write("\n");
+			}
+		}
+		Files.move(csv, dir.resolve("metrics.csv"), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Clears all histograms.
+	 */
+	public static void clear() {
+		for (Map<Phase, Histogram> phases : ACTIONS.values()) {
+			phases.values().forEach(Histogram::reset);
+		}
+		LOCATORS.clear();
+	}
+
+	@Override
+	public String getSummary() {
+		StringBuilder bld = new StringBuilder();
+		for (Row row : rows()) {
+			if (!"locator".equals(row.scope) && row.phase == Phase.TOTAL) {
+				bld.append(row).append(System.lineSeparator());
+			}
+		}
+		return bld.toString();
+	}
+
+	@Override
+	public String getSlowestLocators() {
+		StringBuilder bld = new StringBuilder();
+		rows().stream().filter(r -> "locator".equals(r.scope)).limit(20)
+				.forEach(r -> bld.append(r).append(System.lineSeparator()));
+		return bld.toString();
+	}
+
+	@Override
+	public long getCount(String action) {
+		return ACTIONS.get(Action.valueOf(action.toUpperCase())).get(Phase.TOTAL).getTotalCount();
+	}
+
+	@Override
+	public double getPercentileMillis(String action, String phase, double percentile) {
+		return getMillis(Action.valueOf(action.toUpperCase()), Phase.valueOf(phase.toUpperCase()), percentile);
+	}
+
+	@Override
+	public void reset() {
+		clear();
+	}
+
+	/**
+	 * Records nanos as micros.
+	 *
+	 * @param histogram the histogram
+	 * @param nanos     the nanos
+	 */
+	private static void record(Histogram histogram, long nanos) {
+		histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+	}
+
+	/**
+	 * Builds the rows of the actions and of the locators, slowest total first.
+	 *
+	 * @return the rows
+	 */
+	private static List<Row> rows() {
+		List<Row> rows = new ArrayList<>();
+		for (Map.Entry<Action, Map<Phase, Histogram>> a : ACTIONS.entrySet()) {
+			for (Map.Entry<Phase, Histogram> p : a.getValue().entrySet()) {
+				if (p.getValue().getTotalCount() > 0) {
+					rows.add(new Row("action", a.getKey().name(), p.getKey(), p.getValue().copy()));
+				}
+			}
+		}
+		List<Row> locators = new ArrayList<>();
+		for (Map.Entry<String, Histogram> l : LOCATORS.entrySet()) {
+			Histogram copy = l.getValue().copy();
+			locators.add(new Row("locator", l.getKey(), Phase.TOTAL, copy));
+		}
+		locators.sort(Comparator.comparingDouble((Row r) -> r.histogram.getMean() * r.histogram.getTotalCount())
+				.reversed());
+		rows.addAll(locators);
+		return rows;
+	}
+
+	/**
+	 * Formats nanos as millis.
+	 *
+	 * @param nanos the nanos
+	 * @return the millis with one decimal
+	 */
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+	}
+
+	/**
+	 * The running action of a thread.
+	 */
+	private static final class Timer {
+
+		/** The action. */
+		private final Action action;
+
+		/** The locator. */
+		private final String locator;
+
+		/** The start in nanos. */
+		private final long start = System.nanoTime();
+
+		/** The nanos by phase. */
+		private final long[] nanos = new long[Phase.values().length];
+
+		/**
+		 * Instantiates a new timer.
+		 *
+		 * @param action  the action
+		 * @param locator the locator
+		 */
+		Timer(Action action, String locator) {
+			this.action = action;
+			this.locator = locator;
+		}
+	}
+
+	/**
+	 * A row of the metrics files.
+	 */
+	private static final class Row {
+
+		/** The columns in millis. */
+		static final String[] COLUMNS = { "min_ms", "mean_ms", "p50_ms", "p90_ms", "p95_ms", "p99_ms", "max_ms" };
+
+		/** The scope, action or locator. */
+		private final String scope;
+
+		/** The name. */
+		private final String name;
+
+		/** The phase. */
+		private final Phase phase;
+
+		/** The histogram. */
+		private final Histogram histogram;
+
+		/**
+		 * Instantiates a new row.
+		 *
+		 * @param scope     the scope
+		 * @param name      the name
+		 * @param phase     the phase
+		 * @param histogram the histogram
+		 */
+		Row(String scope, String name, Phase phase, Histogram histogram) {
+			this.scope = scope;
+			this.name = name;
+			this.phase = phase;
+			this.histogram = histogram;
+		}
+
+		/**
+		 * Gets a column value.
+		 *
+		 * @param column the index of the column
+		 * @return the millis with three decimals
+		 */
+		String value(int column) {
+			double micros;
+			switch (column) {
+			case 0:
+				micros = histogram.getMinValue();
+				break;
+			case 1:
+				micros = histogram.getMean();
+				break;
+			case 2:
+				micros = histogram.getValueAtPercentile(50);
+				break;
+			case 3:
+				micros = histogram.getValueAtPercentile(90);
+				break;
+			case 4:
+				micros = histogram.getValueAtPercentile(95);
+				break;
+			case 5:
+				micros = histogram.getValueAtPercentile(99);
+				break;
+			default:
+				micros = histogram.getMaxValue();
+				break;
+			}
+			return String.format(Locale.ROOT, "%.3f", micros / 1000.0);
+		}
+
+		@Override
+		public String toString() {
+			return name + " " + phase.name().toLowerCase() + ": count=" + histogram.getTotalCount() + ", p50="
+					+ value(2) + " ms, p99=" + value(5) + " ms, max=" + value(6) + " ms";
+		}
+	}
+}
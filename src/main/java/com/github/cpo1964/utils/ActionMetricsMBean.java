@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+/**
+ * The MBean of the {@link ActionMetrics}.
+ */
+public interface ActionMetricsMBean {
+
+	/**
+	 * Gets the summary of the total time per action.
+	 *
+	 * @return the summary, one line per action
+	 */
+	String getSummary();
+
+	/**
+	 * Gets the locators with the longest total time.
+	 *
+	 * @return the locators, one line per locator
+	 */
+	String getSlowestLocators();
+
+	/**
+	 * Gets the number of recorded actions.
+	 *
+	 * @param action the action, e.g. 'click'
+	 * @return the count
+	 */
+	long getCount(String action);
+
+	/**
+	 * Gets a percentile of an action phase.
+	 *
+	 * @param action     the action, e.g. 'click'
+	 * @param phase      the phase, e.g. 'total'
+	 * @param percentile the percentile, e.g. 99.0
+	 * @return the millis
+	 */
+	double getPercentileMillis(String action, String phase, double percentile);
+
+	/**
+	 * Clears all histograms.
+	 */
+	void reset();
+}
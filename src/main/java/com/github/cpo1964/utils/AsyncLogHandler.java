@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The Class AsyncLogHandler.
+ * <p>
+ * A handler that hands the records to one writer thread through a bounded,
+ * lock-free ring buffer, so logging threads neither format nor write nor wait
+ * for each other. The writer formats the records and writes them in batches
+ * of up to 'log.async.batch' (default 256) records with one flush per batch.
+ * <p>
+ * The ring holds 'log.async.bufferSize' records (default 8192). When it is
+ * full, 'log.async.policy=block' (default) makes the logging thread wait for
+ * space, 'log.async.policy=drop' drops the record and the writer reports the
+ * number of dropped records. The ring is drained when the handler is closed
+ * and at the latest by a shutdown hook; records published after that are
+ * written directly.
+ * <p>
+ * Like the {@link MaxlevelStreamHandler} records above the max level are not
+ * published.
+ */
+public final class AsyncLogHandler extends Handler {
+
+	/** The size of the ring, a power of two. */
+	private static final int BUFFER_SIZE = Integer.highestOneBit(
+			Math.max(2, Integer.getInteger("log.async.bufferSize", 8192) * 2 - 1));
+
+	/** The maximal records per write. */
+	private static final int BATCH = Math.max(1, Integer.getInteger("log.async.batch", 256));
+
+	/** The drop policy flag. */
+	private static final boolean DROP = "drop".equalsIgnoreCase(System.getProperty("log.async.policy"));
+
+	/** The max millis to drain at close. */
+	private static final long DRAIN_MILLIS = 5000;
+
+	/** The number of handlers, for the thread names. */
+	private static final AtomicLong COUNT = new AtomicLong();
+
+	/** The output stream. */
+	private final OutputStream out;
+
+	/** The max level. */
+	private final Level maxlevel;
+
+	/** The records of the ring. */
+	private final AtomicReferenceArray<LogRecord> records = new AtomicReferenceArray<>(BUFFER_SIZE);
+
+	/** The sequences of the ring slots. */
+	private final AtomicLongArray sequences = new AtomicLongArray(BUFFER_SIZE);
+
+	/** The next position to publish to, shared by the producers. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The next position to take from, only used by the writer. */
+	private long head;
+
+	/** The position up to which the records are written. */
+	private volatile long written;
+
+	/** The dropped records not reported yet. */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** The dropped records. */
+	private final LongAdder droppedTotal = new LongAdder();
+
+	/** The writer thread. */
+	private final Thread writer;
+
+	/** The flag of a writer waiting for records. */
+	private volatile boolean sleeping;
+
+	/** The closed flag. */
+	private volatile boolean closed;
+
+	/**
+	 * Instantiates a new async log handler and starts its writer.
+	 *
+	 * @param out       the output stream, not closed by the handler
+	 * @param formatter the formatter
+	 * @param level     the level
+	 * @param maxlevel  the max level, records above are not published
+	 */
+	public AsyncLogHandler(OutputStream out, Formatter formatter, Level level, Level maxlevel) {
+		this.out = out;
+		this.maxlevel = maxlevel;
+		setFormatter(formatter);
+		setLevel(level);
+		for (int i = 0; i < BUFFER_SIZE; i++) {
+			sequences.set(i, i);
+		}
+		writer = new Thread(this::write, "log-async-writer-" + COUNT.incrementAndGet());
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close, "log-async-drain"));
+	}
+
+	@Override
+	public boolean isLoggable(LogRecord record) {
+		return record != null && record.getLevel().intValue() <= maxlevel.intValue() && super.isLoggable(record);
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (!isLoggable(record)) {
+			return;
+		}
+		// the caller is inferred lazily from the stack, which is the writer's later
+		record.getSourceClassName();
+		while (!closed) {
+			if (offer(record)) {
+				if (closed) {
+					// closed meanwhile, the writer may have stopped before the record was in the ring
+					sweep();
+				} else if (sleeping) {
+					LockSupport.unpark(writer);
+				}
+				return;
+			}
+			if (DROP) {
+				dropped.incrementAndGet();
+				droppedTotal.increment();
+				return;
+			}
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+		}
+		// the writer is gone, e.g. logging of other shutdown hooks
+		synchronized (this) {
+			StringBuilder bld = new StringBuilder();
+			append(bld, record);
+			writeOut(bld);
+		}
+	}
+
+	/**
+	 * Waits until the records published so far are written.
+	 */
+	@Override
+	public void flush() {
+		long target = tail.get();
+		while (!closed && writer.isAlive() && written < target) {
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	/**
+	 * Drains the ring and stops the writer.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		LockSupport.unpark(writer);
+		sweep();
+	}
+
+	/**
+	 * Waits for the writer to stop and writes the records it left in the ring,
+	 * i.e. the ones published while the handler was closed.
+	 */
+	private void sweep() {
+		try {
+			writer.join(DRAIN_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		if (writer.isAlive()) {
+			return;
+		}
+		synchronized (this) {
+			StringBuilder bld = new StringBuilder();
+			LogRecord record;
+			while ((record = poll()) != null) {
+				append(bld, record);
+			}
+			if (bld.length() > 0) {
+				writeOut(bld);
+			}
+			written = head;
+		}
+	}
+
+	/**
+	 * Gets the number of dropped records.
+	 *
+	 * @return the dropped records
+	 */
+	public long getDropped() {
+		return droppedTotal.sum();
+	}
+
+	/**
+	 * Offers a record to the ring.
+	 *
+	 * @param record the record
+	 * @return true, if published, false if the ring is full
+	 */
+	private boolean offer(LogRecord record) {
+		long pos = tail.get();
+		while (true) {
+			int index = (int) (pos & (BUFFER_SIZE - 1));
+			long diff = sequences.get(index) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					records.set(index, record);
+					sequences.set(index, pos + 1);
+					return true;
+				}
+				pos = tail.get();
+			} else if (diff < 0) {
+				return false;
+			} else {
+				pos = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Takes the next record from the ring, only called by the writer or, after
+	 * it stopped, by a sweep.
+	 *
+	 * @return the record or null, if the ring is empty
+	 */
+	private LogRecord poll() {
+		int index = (int) (head & (BUFFER_SIZE - 1));
+		if (sequences.get(index) != head + 1) {
+			return null;
+		}
+		LogRecord record = records.get(index);
+		records.set(index, null);
+		sequences.set(index, head + BUFFER_SIZE);
+		head++;
+		return record;
+	}
+
+	/**
+	 * The loop of the writer thread.
+	 */
+	private void write() {
+		StringBuilder bld = new StringBuilder(8192);
+		while (true) {
+			int count = 0;
+			LogRecord record;
+			while (count < BATCH && (record = poll()) != null) {
+				append(bld, record);
+				count++;
+			}
+			long lost = dropped.getAndSet(0);
+			if (lost > 0) {
+				bld.append(lost).append(" log records dropped").append(System.lineSeparator());
+			}
+			if (bld.length() > 0) {
+				writeOut(bld);
+				written = head;
+			} else if (closed) {
+				return;
+			} else {
+				sleeping = true;
+				if (sequences.get((int) (head & (BUFFER_SIZE - 1))) != head + 1 && !closed) {
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+				}
+				sleeping = false;
+			}
+		}
+	}
+
+	/**
+	 * Formats a record into a builder.
+	 *
+	 * @param bld    the builder
+	 * @param record the record
+	 */
+	private void append(StringBuilder bld, LogRecord record) {
+		try {
+			bld.append(getFormatter().format(record));
+		} catch (RuntimeException e) {
+			reportError(null, e, ErrorManager.FORMAT_FAILURE);
+		}
+	}
+
+	/**
+	 * Writes and clears a builder and flushes the stream.
+	 *
+	 * @param bld the builder
+	 */
+	private void writeOut(StringBuilder bld) {
+		try {
+			String encoding = getEncoding();
+			out.write(bld.toString().getBytes(encoding == null ? Charset.defaultCharset() : Charset.forName(encoding)));
+			out.flush();
+		} catch (IOException | RuntimeException e) {
+			reportError(null, e, ErrorManager.WRITE_FAILURE);
+		}
+		bld.setLength(0);
+	}
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import com.github.cpo1964.platform.selenium.SeleniumStrings;
+
+/**
+ * The Class BrowserPool.
+ * <p>
+ * A bounded pool of started browser sessions per browser type. Sessions are
+ * handed out by SeleniumHelper.launch() and given back by closeBrowser(),
+ * where cookies, storage, additional tabs and the window size are reset.
+ * <p>
+ * The pool is enabled by the system property 'browserPool=true' and configured
+ * by 'browserPool.min' (default 1), 'browserPool.max' (default 4),
+ * 'browserPool.idleSeconds' (default 300) and 'browserPool.waitSeconds'
+ * (default 120).
+ */
+public class BrowserPool {
+
+	/** The Constant POOL_PROPERTY. */
+	public static final String POOL_PROPERTY = "browserPool";
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(BrowserPool.class.getSimpleName());
+
+	/** The pools by browser. */
+	private static final Map<String, BrowserPool> POOLS = new ConcurrentHashMap<>();
+
+	/** The browser. */
+	private final String browser;
+
+	/** The minimum number of sessions kept open. */
+	private final int minSize;
+
+	/** The slots for open sessions. */
+	private final Semaphore slots;
+
+	/** The idle time after which a session above the minimum is closed. */
+	private final long idleMillis;
+
+	/** The maximal time to wait for a session. */
+	private final long waitMillis;
+
+	/** The idle sessions, most recently used first. */
+	private final LinkedBlockingDeque<IdleSession> idle = new LinkedBlockingDeque<>();
+
+	/** The evictor. */
+	private final ScheduledExecutorService evictor;
+
+	/** The created sessions. */
+	private final LongAdder created = new LongAdder();
+
+	/** The borrowed sessions. */
+	private final LongAdder borrowed = new LongAdder();
+
+	/** The reused sessions. */
+	private final LongAdder reused = new LongAdder();
+
+	/** The discarded sessions. */
+	private final LongAdder discarded = new LongAdder();
+
+	/** The total wait time in nanos. */
+	private final LongAdder waitNanos = new LongAdder();
+
+	/** The maximal wait time in nanos. */
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	/** The total creation time in nanos. */
+	private final LongAdder creationNanos = new LongAdder();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(BrowserPool::shutdown, "browser-pool-shutdown"));
+	}
+
+	/**
+	 * Instantiates a new browser pool and starts the minimum number of sessions
+	 * in the background.
+	 *
+	 * @param browser the browser
+	 */
+	private BrowserPool(String browser) {
+		this.browser = browser;
+		int max = Math.max(1, Integer.getInteger(POOL_PROPERTY + ".max", 4));
+		this.minSize = Math.min(max, Math.max(0, Integer.getInteger(POOL_PROPERTY + ".min", 1)));
+		this.slots = new Semaphore(max);
+		this.idleMillis = TimeUnit.SECONDS.toMillis(Integer.getInteger(POOL_PROPERTY + ".idleSeconds", 300));
+		this.waitMillis = TimeUnit.SECONDS.toMillis(Integer.getInteger(POOL_PROPERTY + ".waitSeconds", 120));
+		this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "browser-pool-" + browser);
+			t.setDaemon(true);
+			return t;
+		});
+		long period = Math.max(1000, idleMillis / 2);
+		evictor.execute(this::warmUp);
+		evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Checks if the pool is enabled.
+	 *
+	 * @return true, if enabled
+	 */
+	public static boolean isEnabled() {
+		return CommonHelper.isTrue(System.getProperty(POOL_PROPERTY));
+	}
+
+	/**
+	 * Gets the pool of a browser.
+	 *
+	 * @param browser the browser
+	 * @return the browser pool
+	 */
+	public static BrowserPool get(String browser) {
+		return POOLS.computeIfAbsent(browser.toLowerCase(), BrowserPool::new);
+	}
+
+	/**
+	 * Closes the idle sessions of all pools.
+	 */
+	public static void shutdown() {
+		for (BrowserPool pool : POOLS.values()) {
+			pool.evictor.shutdownNow();
+			IdleSession session;
+			while ((session = pool.idle.pollFirst()) != null) {
+				pool.discard(session.driver);
+			}
+		}
+	}
+
+	/**
+	 * Borrows a session, waits up to 'browserPool.waitSeconds' if all sessions
+	 * are in use.
+	 *
+	 * @return the driver
+	 */
+	public RemoteWebDriver borrow() {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+		try {
+			while (true) {
+				IdleSession session = idle.pollFirst();
+				if (session == null && slots.tryAcquire()) {
+					RemoteWebDriver driver = create();
+					borrowed.increment();
+					return driver;
+				}
+				if (session == null) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException("no " + browser + " session available after " + waitMillis + " ms");
+					}
+					// a slot may be freed without a session getting idle, so poll in short intervals
+					session = idle.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)),
+							TimeUnit.NANOSECONDS);
+				}
+				if (session != null) {
+					if (isHealthy(session.driver)) {
+						borrowed.increment();
+						reused.increment();
+						return session.driver;
+					}
+					discard(session.driver);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebDriverException("interrupted while waiting for a " + browser + " session");
+		} finally {
+			long waited = System.nanoTime() - start;
+			waitNanos.add(waited);
+			maxWaitNanos.accumulateAndGet(waited, Math::max);
+		}
+	}
+
+	/**
+	 * Gives a session back to the pool. The session is reset first and closed
+	 * if the reset fails.
+	 *
+	 * @param driver the driver
+	 */
+	public void release(RemoteWebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		try {
+			reset(driver);
+			idle.offerFirst(new IdleSession(driver));
+		} catch (WebDriverException e) {
+			log.warning(() -> "reset of " + browser + " session failed: " + e.getMessage());
+			discard(driver);
+		}
+	}
+
+	/**
+	 * Creates a session, the slot has to be acquired before.
+	 *
+	 * @return the driver
+	 */
+	private RemoteWebDriver create() {
+		long start = System.nanoTime();
+		try {
+			RemoteWebDriver driver;
+			if (SeleniumStrings.CHROME.equalsIgnoreCase(browser)) {
+				driver = BrowserHelper.getChromeDriver();
+			} else if (SeleniumStrings.FIREFOX.equalsIgnoreCase(browser)) {
+				driver = BrowserHelper.getFirefoxDriver();
+			} else {
+				throw new IllegalArgumentException("browser not supported: " + browser);
+			}
+			created.increment();
+			return driver;
+		} catch (RuntimeException e) {
+			slots.release();
+			throw e;
+		} finally {
+			creationNanos.add(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Closes a session and frees its slot.
+	 *
+	 * @param driver the driver
+	 */
+	private void discard(RemoteWebDriver driver) {
+		try {
+			driver.quit();
+		} catch (WebDriverException e) {
+			log.finest(e.getMessage());
+		} finally {
+			discarded.increment();
+			slots.release();
+		}
+	}
+
+	/**
+	 * Resets a session: closes additional tabs, clears storage and cookies and
+	 * restores the window size. Cookies can only be deleted for the domain of the
+	 * current page.
+	 *
+	 * @param driver the driver
+	 */
+	private static void reset(RemoteWebDriver driver) {
+		Iterator<String> handles = driver.getWindowHandles().iterator();
+		String first = handles.next();
+		while (handles.hasNext()) {
+			driver.switchTo().window(handles.next()).close();
+		}
+		driver.switchTo().window(first);
+		driver.switchTo().defaultContent();
+		try {
+			driver.executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+		} catch (WebDriverException e) {
+			// no storage for this page (e.g. about:blank)
+		}
+		driver.manage().deleteAllCookies();
+		driver.get("about:blank");
+		driver.manage().window().maximize();
+	}
+
+	/**
+	 * Checks if a session still responds.
+	 *
+	 * @param driver the driver
+	 * @return true, if healthy
+	 */
+	private static boolean isHealthy(RemoteWebDriver driver) {
+		try {
+			return !driver.getWindowHandles().isEmpty();
+		} catch (WebDriverException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Starts the minimum number of sessions.
+	 */
+	private void warmUp() {
+		while (idle.size() < minSize && slots.tryAcquire()) {
+			try {
+				idle.offerLast(new IdleSession(create()));
+			} catch (WebDriverException e) {
+				log.warning(() -> "warm up of " + browser + " session failed: " + e.getMessage());
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Closes sessions idle for longer than 'browserPool.idleSeconds' and the
+	 * sessions which are not healthy any more, keeping the minimum number open.
+	 */
+	private void evictIdle() {
+		long now = System.currentTimeMillis();
+		Iterator<IdleSession> it = idle.descendingIterator();
+		while (it.hasNext()) {
+			IdleSession session = it.next();
+			boolean expired = now - session.since > idleMillis && idle.size() > minSize;
+			if ((expired || !isHealthy(session.driver)) && idle.remove(session)) {
+				discard(session.driver);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of created sessions.
+	 *
+	 * @return the created sessions
+	 */
+	public long getCreated() {
+		return created.sum();
+	}
+
+	/**
+	 * Gets the number of borrowed sessions.
+	 *
+	 * @return the borrowed sessions
+	 */
+	public long getBorrowed() {
+		return borrowed.sum();
+	}
+
+	/**
+	 * Gets the number of borrowed sessions which have been reused.
+	 *
+	 * @return the reused sessions
+	 */
+	public long getReused() {
+		return reused.sum();
+	}
+
+	/**
+	 * Gets the number of closed sessions.
+	 *
+	 * @return the discarded sessions
+	 */
+	public long getDiscarded() {
+		return discarded.sum();
+	}
+
+	/**
+	 * Gets the reuse ratio.
+	 *
+	 * @return the reused sessions per borrowed session
+	 */
+	public double getReuseRatio() {
+		long b = getBorrowed();
+		return b == 0 ? 0 : (double) getReused() / b;
+	}
+
+	/**
+	 * Gets the total wait time.
+	 *
+	 * @return the wait time in millis
+	 */
+	public long getWaitTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+	}
+
+	/**
+	 * Gets the maximal wait time.
+	 *
+	 * @return the maximal wait time in millis
+	 */
+	public long getMaxWaitTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+	}
+
+	/**
+	 * Gets the total creation time.
+	 *
+	 * @return the creation time in millis
+	 */
+	public long getCreationTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(creationNanos.sum());
+	}
+
+	/**
+	 * Gets the number of idle sessions.
+	 *
+	 * @return the idle sessions
+	 */
+	public int getIdle() {
+		return idle.size();
+	}
+
+	@Override
+	public String toString() {
+		return "BrowserPool[" + browser + ", created=" + getCreated() + ", borrowed=" + getBorrowed() + ", reused="
+				+ getReused() + ", idle=" + getIdle() + ", waitMs=" + getWaitTimeMillis() + ", creationMs="
+				+ getCreationTimeMillis() + "]";
+	}
+
+	/**
+	 * An idle session.
+	 */
+	private static final class IdleSession {
+
+		/** The driver. */
+		private final RemoteWebDriver driver;
+
+		/** The time the session got idle. */
+		private final long since = System.currentTimeMillis();
+
+		/**
+		 * Instantiates a new idle session.
+		 *
+		 * @param driver the driver
+		 */
+		IdleSession(RemoteWebDriver driver) {
+			this.driver = driver;
+		}
+	}
+}
@@ -57,35 +57,65 @@ public class CommonHelper {
 	 * @return the class property value by key
 	 */
 	public static String getClassPropertyValueByKey(final Class<?> propHolder, String key) {
-		String propertiesFileDestination = propHolder.getSimpleName() + ".properties";
-		InputStream stream = propHolder.getResourceAsStream(propertiesFileDestination);
-		if (stream == null) {
-			URL url = propHolder.getClassLoader().getResource(propertiesFileDestination);
-			if (url != null) {
-				try (InputStream streamOpen = url.openStream()) {
-					stream = streamOpen;
-				} catch (IOException e1) {
-					throw new UnsupportedOperationException("Can not find property file: " + propertiesFileDestination);
-				}
-			} else {
-				throw new UnsupportedOperationException("Can not find property file: " + propertiesFileDestination);
-			}
-		}
-		Properties prop = new Properties();
-		try {
-			prop.load(stream);
-		} catch (IOException e) {
-			throw new UnsupportedOperationException("Can not open property file: " + propertiesFileDestination);
-		}
+		return getPropertyValueByKey(getClassProperties(propHolder), key, propHolder.getSimpleName() + ".properties");
+	}
 
+	/**
+	 * Gets the property value by key from already loaded properties.
+	 *
+	 * @param prop     the properties
+	 * @param key      the key
+	 * @param fileName the name of the file the properties were loaded from
+	 * @return the property value by key
+	 */
+	public static String getPropertyValueByKey(Properties prop, String key, String fileName) {
 		String value = prop.getProperty(key);
 		if (value == null || value.isEmpty()) {
 			throw new IllegalArgumentException(
-					"Property '" + key + "' from file " + propertiesFileDestination + " does not exists or is empty!");
+					"Property '" + key + "' from file " + fileName + " does not exists or is empty!");
 		}
 		return value;
 	}
 
+	/**
+	 * Gets the url of the properties file belonging to a class.
+	 * <p>
+	 * The file is searched next to the class first and then at the root of the
+	 * class path.
+	 *
+	 * @param propHolder the prop holder
+	 * @return the url of the properties file
+	 */
+	public static URL getClassPropertiesUrl(final Class<?> propHolder) {
+		String propertiesFileDestination = propHolder.getSimpleName() + ".properties";
+		URL url = propHolder.getResource(propertiesFileDestination);
+		if (url == null) {
+			url = propHolder.getClassLoader().getResource(propertiesFileDestination);
+		}
+		if (url == null) {
+			throw new UnsupportedOperationException("Can not find property file: " + propertiesFileDestination);
+		}
+		return url;
+	}
+
+	/**
+	 * Loads the properties file belonging to a class.
+	 *
+	 * @param propHolder the prop holder
+	 * @return the class properties
+	 */
+	public static Properties getClassProperties(final Class<?> propHolder) {
+		URL url = getClassPropertiesUrl(propHolder);
+		Properties prop = new Properties();
+		try (InputStream stream = url.openStream()) {
+			prop.load(stream);
+		} catch (IOException e) {
+			throw new UnsupportedOperationException(
+					"Can not open property file: " + propHolder.getSimpleName() + ".properties");
+		}
+		return prop;
+	}
+
 	/**
 	 * Checks if is true.
 	 *
@@ -118,6 +148,33 @@ public class CommonHelper {
 		return bld.toString();
 	}
 
+	/**
+	 * Escapes a string for a json string literal.
+	 *
+	 * @param value the value
+	 * @return the escaped value, without quotes
+	 */
+	public static String escapeJson(String value) {
+		StringBuilder bld = new StringBuilder(value.length() + 16);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				bld.append('\\').append(c);
+			} else if (c == '\n') {
+				bld.append("\\n");
+			} else if (c == '\r') {
+				bld.append("\\r");
+			} else if (c == '\t') {
+				bld.append("\\t");
+			} else if (c < 0x20) {
+				bld.append(String.format("\\u%04x", (int) c));
+			} else {
+				bld.append(c);
+			}
+		}
+		return bld.toString();
+	}
+
 	/**
 	 * Wait.
 	 * <p>
@@ -13,25 +13,12 @@
 package com.github.cpo1964.utils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Logger;
 
-import org.apache.poi.hssf.usermodel.HSSFSheet;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.CellValue;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.FormulaEvaluator;
-import org.apache.poi.ss.usermodel.Row;
-
 /**
  * The Class ExcelHelper.
  */
@@ -41,7 +28,7 @@ public class ExcelHelper {
 	private static final Logger LOGGER = Logger.getLogger(ExcelHelper.class.getSimpleName());
 
 	/** The data. */
-	private LinkedList<Object[]> data = null;
+	private List<Object[]> data = null;
 
 	/**
 	 * Instantiates a new excel helper.
@@ -52,7 +39,7 @@ public class ExcelHelper {
 	 */
 	public ExcelHelper(File file, String sheetName) throws IOException {
 		MaxlevelStreamHandler.setupMaxLevelStreamHandler(LOGGER);
-		this.data = this.doloadFromSpreadsheet(file.getPath(), sheetName, true);
+		this.data = this.doloadFromSpreadsheet(file, sheetName);
 	}
 
 	/**
@@ -65,173 +52,67 @@ public class ExcelHelper {
 	}
 
 	/**
-	 * Doload from spreadsheet.
+	 * Streams the rows of a sheet without loading them all, e.g. for a data
+	 * provider over a large sheet. The caller should close the iterator, if it
+	 * does not read all rows.
 	 *
-	 * @param pFilePath    the file path
-	 * @param pSheetName   the sheet name
-	 * @param skipFirstRow the skip first row
-	 * @return the linked list
+	 * @param file      the file
+	 * @param sheetName the sheet name
+	 * @param columns   the header names of the columns to return, all if empty
+	 * @return the excel row iterator
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private LinkedList<Object[]> doloadFromSpreadsheet(String pFilePath, String pSheetName, boolean skipFirstRow)
-			throws IOException {
-		LinkedList<Object[]> rows = null;
-		InputStream testdata = new FileInputStream(pFilePath);
-		try (HSSFWorkbook workbook = new HSSFWorkbook(testdata)) {
-			if (!(new File(pFilePath)).exists()) {
-				throw new IOException("Die Datei '" + pFilePath + "' konnte nicht gefunden werden");
-			}
-			String logMsg = "Benutze folgende Testdaten:\n" + (new File(pFilePath)).getCanonicalPath() + " / Sheet: "
-					+ pSheetName;
-			LOGGER.info(logMsg);
-			HSSFSheet sheet = workbook.getSheet(pSheetName);
-			int numberOfColumns = this.countNonEmptyColumns(sheet);
-			rows = new LinkedList<>();
-			List<Object> rowData = new ArrayList<>();
-			boolean isFirstRow = skipFirstRow;
-			Iterator<?> sheetIt = sheet.iterator();
-			while (sheetIt.hasNext()) {
-				Row row = (Row) sheetIt.next();
-				if (this.isEmpty(row)) {
-					break;
-				}
-				if (isFirstRow) {
-					isFirstRow = false;
-				} else {
-					rowData.clear();
-					for (int column = 0; column < numberOfColumns; ++column) {
-						Cell cell = row.getCell(column);
-						rowData.add(this.stringValueFromCell(workbook, cell));
-					}
-					rows.add(rowData.toArray());
-				}
-			}
-		}
-		return rows;
-	}
-
-	/**
-	 * Gets the sheet name.
-	 *
-	 * @param clazz the clazz
-	 * @return the sheet name
-	 */
-	public static String getSheetName(Class<?> clazz) {
-		String sheetName = clazz.getSimpleName();
-		String[] sheetNameArr = sheetName.split("_");
-		if (sheetNameArr.length > 0) {
-			sheetName = sheetNameArr[0];
-		}
-		return sheetName;
-	}
-
-	/**
-	 * Checks if is empty.
-	 *
-	 * @param row the row
-	 * @return true, if is empty
-	 */
-	private boolean isEmpty(Row row) {
-		Cell firstCell = row.getCell(0);
-		return firstCell == null || firstCell.getCellType()
-//				.getCellType()
-				.equals(CellType.BLANK);
-	}
-
-	/**
-	 * Count non empty columns.
-	 *
-	 * @param sheet the sheet
-	 * @return the int
-	 */
-	private int countNonEmptyColumns(HSSFSheet sheet) {
-		Row firstRow = sheet.getRow(0);
-		return this.firstEmptyCellPosition(firstRow);
-	}
-
-	/**
-	 * First empty cell position.
-	 *
-	 * @param cells the cells
-	 * @return the int
-	 */
-	private int firstEmptyCellPosition(Row cells) {
-		int columnCount = 0;
-
-		for (Iterator<?> it = cells.iterator(); it.hasNext(); ++columnCount) {
-			Cell cell = (Cell) it.next();
-			if (cell.getCellType()
-//					.getCellType()
-					.equals(CellType.BLANK)) {
-				break;
-			}
-		}
-
-		return columnCount;
+	public static ExcelRowIterator stream(File file, String sheetName, String... columns) throws IOException {
+		MaxlevelStreamHandler.setupMaxLevelStreamHandler(LOGGER);
+		logTestdata(file, sheetName);
+		return ExcelRowIterator.open(file, sheetName, columns);
 	}
 
 	/**
-	 * String value from cell.
+	 * Doload from spreadsheet.
 	 *
-	 * @param workbook the workbook
-	 * @param cell     the cell
-	 * @return the string
+	 * @param file      the file
+	 * @param sheetName the sheet name
+	 * @return the rows
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private String stringValueFromCell(HSSFWorkbook workbook, Cell cell) {
-		String cellValue = null;
-		if (cell == null) {
-			return "";
-		} else {
-			if (cell.getCellType().equals(CellType.NUMERIC)) {
-				cellValue = "" + this.getNumericCellValue(cell);
-			} else if (cell.getCellType().equals(CellType.STRING)) {
-				cellValue = cell.getRichStringCellValue().getString();
-			} else if (cell.getCellType().equals(CellType.FORMULA)) {
-				cellValue = "" + this.evaluateCellFormula(workbook, cell);
-			} else if (cell.getCellType().equals(CellType.BOOLEAN)) {
-				cellValue = Boolean.toString(cell.getBooleanCellValue());
-			}
-
-			return cellValue;
+	private List<Object[]> doloadFromSpreadsheet(File file, String sheetName) throws IOException {
+		List<Object[]> rows = new ArrayList<>();
+		try (ExcelRowIterator it = stream(file, sheetName)) {
+			it.forEachRemaining(rows::add);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
 		}
+		return rows;
 	}
 
 	/**
-	 * Gets the numeric cell value.
+	 * Logs the testdata file.
 	 *
-	 * @param cell the cell
-	 * @return the numeric cell value
+	 * @param file      the file
+	 * @param sheetName the sheet name
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private Object getNumericCellValue(Cell cell) {
-		Object cellValue;
-		if (DateUtil.isCellDateFormatted(cell)) {
-			cellValue = new Date(cell.getDateCellValue().getTime());
-		} else {
-			cellValue = cell.getNumericCellValue();
+	private static void logTestdata(File file, String sheetName) throws IOException {
+		if (!file.exists()) {
+			throw new IOException("Die Datei '" + file.getPath() + "' konnte nicht gefunden werden");
 		}
-
-		return cellValue;
+		String logMsg = "Benutze folgende Testdaten:\n" + file.getCanonicalPath() + " / Sheet: " + sheetName;
+		LOGGER.info(logMsg);
 	}
 
 	/**
-	 * Evaluate cell formula.
+	 * Gets the sheet name.
 	 *
-	 * @param workbook the workbook
-	 * @param cell     the cell
-	 * @return the object
+	 * @param clazz the clazz
+	 * @return the sheet name
 	 */
-	private Object evaluateCellFormula(HSSFWorkbook workbook, Cell cell) {
-		FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
-		CellValue cellValue = evaluator.evaluate(cell);
-		Object result = null;
-		if (cellValue.getCellType().equals(CellType.NUMERIC)) {
-			result = cellValue.getNumberValue();
-		} else if (cellValue.getCellType().equals(CellType.STRING)) {
-			result = cellValue.getStringValue();
-		} else if (cellValue.getCellType().equals(CellType.BOOLEAN)) {
-			result = cellValue.getBooleanValue();
+	public static String getSheetName(Class<?> clazz) {
+		String sheetName = clazz.getSimpleName();
+		String[] sheetNameArr = sheetName.split("_");
+		if (sheetNameArr.length > 0) {
+			sheetName = sheetNameArr[0];
 		}
-
-		return result;
+		return sheetName;
 	}
 }
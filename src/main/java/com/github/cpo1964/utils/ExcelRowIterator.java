@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The Class ExcelRowIterator.
+ * <p>
+ * Reads the rows of a sheet lazily, one row per call of {@link #next()}, so it
+ * can be handed to a data provider directly. The first row holds the column
+ * headers, the columns end at the first empty header cell and the rows end at
+ * the first row with an empty first cell. Every value is returned as string,
+ * like {@link ExcelHelper} always did.
+ * <p>
+ * '.xlsx' files are streamed with StAX, '.xls' files are read with the HSSF
+ * user model but converted row by row. The iterator closes the file when the
+ * last row has been read.
+ */
+public abstract class ExcelRowIterator implements Iterator<Object[]>, Closeable {
+
+	/** The header names. */
+	private List<String> header;
+
+	/** The projected column indexes, null for all columns. */
+	private int[] projection;
+
+	/** The requested columns. */
+	private final String[] columns;
+
+	/** The next row. */
+	private Object[] next;
+
+	/** The end of the sheet has been reached. */
+	private boolean done;
+
+	/**
+	 * Instantiates a new excel row iterator.
+	 *
+	 * @param columns the header names of the columns to return, all if empty
+	 */
+	protected ExcelRowIterator(String... columns) {
+		this.columns = columns;
+	}
+
+	/**
+	 * Opens a sheet, the format is chosen by the file extension.
+	 *
+	 * @param file      the file
+	 * @param sheetName the sheet name
+	 * @param columns   the header names of the columns to return, all if empty
+	 * @return the excel row iterator
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static ExcelRowIterator open(File file, String sheetName, String... columns) throws IOException {
+		if (!file.exists()) {
+			throw new IOException("Die Datei '" + file.getPath() + "' konnte nicht gefunden werden");
+		}
+		String name = file.getName().toLowerCase();
+		if (name.endsWith(".xlsx") || name.endsWith(".xlsm")) {
+			return new XssfRowIterator(file, sheetName, columns);
+		}
+		return new HssfRowIterator(file, sheetName, columns);
+	}
+
+	/**
+	 * Reads the header row.
+	 *
+	 * @return the header names up to the first empty cell
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected abstract List<String> readHeader() throws IOException;
+
+	/**
+	 * Reads the next data row.
+	 *
+	 * @param width the number of columns
+	 * @return the values or null, if the sheet or the data ends
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected abstract Object[] readRow(int width) throws IOException;
+
+	/**
+	 * Gets the header names.
+	 *
+	 * @return the header
+	 */
+	public List<String> getHeader() {
+		init();
+		return header;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !done) {
+			init();
+			try {
+				Object[] row = readRow(header.size());
+				if (row == null) {
+					done = true;
+					close();
+				} else {
+					next = project(row);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public Object[] next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Object[] row = next;
+		next = null;
+		return row;
+	}
+
+	/**
+	 * Reads the header and resolves the projection.
+	 */
+	private void init() {
+		if (header != null) {
+			return;
+		}
+		try {
+			header = readHeader();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (columns != null && columns.length > 0) {
+			projection = new int[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				projection[i] = header.indexOf(columns[i]);
+				if (projection[i] < 0) {
+					throw new IllegalArgumentException("column '" + columns[i] + "' not found in " + header);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Projects a row to the requested columns.
+	 *
+	 * @param row the row
+	 * @return the projected row
+	 */
+	private Object[] project(Object[] row) {
+		if (projection == null) {
+			return row;
+		}
+		Object[] result = new Object[projection.length];
+		for (int i = 0; i < projection.length; i++) {
+			result[i] = row[projection[i]];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * The Class HssfRowIterator.
+ * <p>
+ * Reads the rows of a '.xls' sheet. The workbook is loaded by the HSSF user
+ * model, but the rows are converted one by one and all formulas share one
+ * evaluator.
+ */
+class HssfRowIterator extends ExcelRowIterator {
+
+	/** The workbook. */
+	private final HSSFWorkbook workbook;
+
+	/** The evaluator. */
+	private final FormulaEvaluator evaluator;
+
+	/** The rows. */
+	private final Iterator<Row> rows;
+
+	/**
+	 * Instantiates a new hssf row iterator.
+	 *
+	 * @param file      the file
+	 * @param sheetName the sheet name
+	 * @param columns   the columns
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	HssfRowIterator(File file, String sheetName, String... columns) throws IOException {
+		super(columns);
+		try (InputStream in = new FileInputStream(file)) {
+			workbook = new HSSFWorkbook(in);
+		}
+		HSSFSheet sheet = workbook.getSheet(sheetName);
+		if (sheet == null) {
+			workbook.close();
+			throw new IOException("Sheet '" + sheetName + "' not found in " + file.getPath());
+		}
+		evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+		rows = sheet.iterator();
+	}
+
+	@Override
+	protected List<String> readHeader() {
+		List<String> header = new ArrayList<>();
+		if (rows.hasNext()) {
+			Row row = rows.next();
+			for (Cell cell : row) {
+				if (cell.getCellType().equals(CellType.BLANK)) {
+					break;
+				}
+				header.add(stringValueFromCell(cell));
+			}
+		}
+		return header;
+	}
+
+	@Override
+	protected Object[] readRow(int width) {
+		if (!rows.hasNext()) {
+			return null;
+		}
+		Row row = rows.next();
+		if (isEmpty(row)) {
+			return null;
+		}
+		Object[] rowData = new Object[width];
+		for (int column = 0; column < width; ++column) {
+			rowData[column] = stringValueFromCell(row.getCell(column));
+		}
+		return rowData;
+	}
+
+	@Override
+	public void close() throws IOException {
+		workbook.close();
+	}
+
+	/**
+	 * Checks if is empty.
+	 *
+	 * @param row the row
+	 * @return true, if is empty
+	 */
+	private static boolean isEmpty(Row row) {
+		Cell firstCell = row.getCell(0);
+		return firstCell == null || firstCell.getCellType().equals(CellType.BLANK);
+	}
+
+	/**
+	 * String value from cell.
+	 *
+	 * @param cell the cell
+	 * @return the string
+	 */
+	private String stringValueFromCell(Cell cell) {
+		String cellValue = null;
+		if (cell == null) {
+			return "";
+		} else {
+			if (cell.getCellType().equals(CellType.NUMERIC)) {
+				cellValue = "" + getNumericCellValue(cell);
+			} else if (cell.getCellType().equals(CellType.STRING)) {
+				cellValue = cell.getRichStringCellValue().getString();
+			} else if (cell.getCellType().equals(CellType.FORMULA)) {
+				cellValue = "" + evaluateCellFormula(cell);
+			} else if (cell.getCellType().equals(CellType.BOOLEAN)) {
+				cellValue = Boolean.toString(cell.getBooleanCellValue());
+			}
+
+			return cellValue;
+		}
+	}
+
+	/**
+	 * Gets the numeric cell value.
+	 *
+	 * @param cell the cell
+	 * @return the numeric cell value
+	 */
+	private static Object getNumericCellValue(Cell cell) {
+		Object cellValue;
+		if (DateUtil.isCellDateFormatted(cell)) {
+			cellValue = new Date(cell.getDateCellValue().getTime());
+		} else {
+			cellValue = cell.getNumericCellValue();
+		}
+
+		return cellValue;
+	}
+
+	/**
+	 * Evaluate cell formula.
+	 *
+	 * @param cell the cell
+	 * @return the object
+	 */
+	private Object evaluateCellFormula(Cell cell) {
+		CellValue cellValue = evaluator.evaluate(cell);
+		Object result = null;
+		if (cellValue.getCellType().equals(CellType.NUMERIC)) {
+			result = cellValue.getNumberValue();
+		} else if (cellValue.getCellType().equals(CellType.STRING)) {
+			result = cellValue.getStringValue();
+		} else if (cellValue.getCellType().equals(CellType.BOOLEAN)) {
+			result = cellValue.getBooleanValue();
+		}
+
+		return result;
+	}
+}
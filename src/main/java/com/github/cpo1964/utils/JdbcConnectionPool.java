@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * The Class JdbcConnectionPool.
+ * <p>
+ * A bounded pool of connections for the {@link JdbcHelper}. A connection is
+ * validated by {@link Connection#isValid(int)} when it has been idle longer
+ * than the validation interval, and every connection caches its prepared
+ * statements by sql text (least recently used ones are closed).
+ * <p>
+ * A released connection is rolled back, if it is not in auto commit mode, and
+ * its auto commit, read only and isolation settings are reset to the ones it
+ * was created with, so an open transaction or a changed setting never reaches
+ * the next borrower.
+ */
+class JdbcConnectionPool {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(JdbcConnectionPool.class.getSimpleName());
+
+	/** The url. */
+	private final String url;
+
+	/** The username. */
+	private final String username;
+
+	/** The password. */
+	private final String password;
+
+	/** The slots for open connections. */
+	private final Semaphore slots;
+
+	/** The pool size. */
+	private final int size;
+
+	/** The statement cache size per connection. */
+	private final int statementCacheSize;
+
+	/** The validation timeout in seconds. */
+	private final int validationTimeout;
+
+	/** The idle time after which a connection is validated. */
+	private final long validationIdleMillis;
+
+	/** The maximal time to wait for a connection. */
+	private final long waitMillis;
+
+	/** The idle connections, most recently used first. */
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+	/** The created connections. */
+	private final LongAdder created = new LongAdder();
+
+	/** The borrowed connections. */
+	private final LongAdder borrowed = new LongAdder();
+
+	/** The discarded connections. */
+	private final LongAdder discarded = new LongAdder();
+
+	/** The failed validations. */
+	private final LongAdder validationFailures = new LongAdder();
+
+	/** The statement cache hits. */
+	private final LongAdder statementHits = new LongAdder();
+
+	/** The statement cache misses. */
+	private final LongAdder statementMisses = new LongAdder();
+
+	/** The total wait millis. */
+	private final LongAdder waitMillisTotal = new LongAdder();
+
+	/** The max wait millis. */
+	private final AtomicLong maxWaitMillis = new AtomicLong();
+
+	/** The closed flag. */
+	private volatile boolean closed;
+
+	/**
+	 * Instantiates a new jdbc connection pool.
+	 *
+	 * @param url                  the url
+	 * @param username             the username
+	 * @param password             the password
+	 * @param size                 the pool size
+	 * @param statementCacheSize   the statement cache size per connection
+	 * @param validationTimeout    the validation timeout in seconds
+	 * @param validationIdleMillis the idle time after which a connection is
+	 *                             validated
+	 * @param waitMillis           the maximal time to wait for a connection
+	 */
+	JdbcConnectionPool(String url, String username, String password, int size, int statementCacheSize,
+			int validationTimeout, long validationIdleMillis, long waitMillis) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.size = Math.max(1, size);
+		this.slots = new Semaphore(this.size, true);
+		this.statementCacheSize = Math.max(0, statementCacheSize);
+		this.validationTimeout = Math.max(1, validationTimeout);
+		this.validationIdleMillis = validationIdleMillis;
+		this.waitMillis = waitMillis;
+	}
+
+	/**
+	 * Borrows a connection.
+	 *
+	 * @return the pooled connection
+	 * @throws SQLException the SQL exception
+	 */
+	PooledConnection borrow() throws SQLException {
+		if (closed) {
+			throw new SQLException("connection pool is closed");
+		}
+		long start = System.currentTimeMillis();
+		try {
+			if (!slots.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLTimeoutException("no connection available within " + waitMillis + " ms");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("interrupted while waiting for a connection", e);
+		}
+		long waited = System.currentTimeMillis() - start;
+		waitMillisTotal.add(waited);
+		maxWaitMillis.accumulateAndGet(waited, Math::max);
+		try {
+			PooledConnection pc;
+			while ((pc = idle.pollFirst()) != null) {
+				if (isUsable(pc)) {
+					borrowed.increment();
+					return pc;
+				}
+				validationFailures.increment();
+				discard(pc);
+			}
+			Connection connection = DriverManager.getConnection(url, username, password);
+			try {
+				pc = new PooledConnection(connection);
+			} catch (SQLException e) {
+				connection.close();
+				throw e;
+			}
+			created.increment();
+			borrowed.increment();
+			return pc;
+		} catch (SQLException | RuntimeException e) {
+			slots.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives a connection back. Connections with a broken link or which can not
+	 * be reset are discarded.
+	 *
+	 * @param pc     the pooled connection
+	 * @param broken true, if a connection error occurred
+	 */
+	void release(PooledConnection pc, boolean broken) {
+		try {
+			if (broken || closed || !reset(pc)) {
+				discard(pc);
+			} else {
+				pc.lastUsed = System.currentTimeMillis();
+				idle.offerFirst(pc);
+			}
+		} finally {
+			slots.release();
+		}
+	}
+
+	/**
+	 * Rolls back an open transaction and resets the settings of a connection.
+	 *
+	 * @param pc the pooled connection
+	 * @return true, if reset, false if the connection has to be discarded
+	 */
+	private static boolean reset(PooledConnection pc) {
+		Connection connection = pc.connection;
+		try {
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+			}
+			if (connection.getAutoCommit() != pc.autoCommit) {
+				connection.setAutoCommit(pc.autoCommit);
+			}
+			if (connection.isReadOnly() != pc.readOnly) {
+				connection.setReadOnly(pc.readOnly);
+			}
+			if (connection.getTransactionIsolation() != pc.isolation) {
+				connection.setTransactionIsolation(pc.isolation);
+			}
+			return true;
+		} catch (SQLException | RuntimeException e) {
+			log.fine(() -> "resetting a connection failed: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Closes all idle connections, connections in use are closed on release.
+	 */
+	void close() {
+		closed = true;
+		PooledConnection pc;
+		while ((pc = idle.pollFirst()) != null) {
+			discard(pc);
+		}
+	}
+
+	/**
+	 * Checks if an idle connection can be handed out.
+	 *
+	 * @param pc the pooled connection
+	 * @return true, if usable
+	 */
+	private boolean isUsable(PooledConnection pc) {
+		if (System.currentTimeMillis() - pc.lastUsed < validationIdleMillis) {
+			return true;
+		}
+		try {
+			return pc.connection.isValid(validationTimeout);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Closes a connection with its statements.
+	 *
+	 * @param pc the pooled connection
+	 */
+	private void discard(PooledConnection pc) {
+		discarded.increment();
+		pc.statements.clear();
+		try {
+			pc.connection.close();
+		} catch (SQLException e) {
+			log.fine(() -> "closing a connection failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the created connections.
+	 *
+	 * @return the created
+	 */
+	long getCreated() {
+		return created.sum();
+	}
+
+	/**
+	 * Gets the borrowed connections.
+	 *
+	 * @return the borrowed
+	 */
+	long getBorrowed() {
+		return borrowed.sum();
+	}
+
+	/**
+	 * Gets the number of connections in use.
+	 *
+	 * @return the active
+	 */
+	int getActive() {
+		return size - slots.availablePermits();
+	}
+
+	/**
+	 * Gets the number of idle connections.
+	 *
+	 * @return the idle
+	 */
+	int getIdle() {
+		return idle.size();
+	}
+
+	/**
+	 * Gets the statement cache hit ratio.
+	 *
+	 * @return the ratio between 0 and 1
+	 */
+	double getStatementHitRatio() {
+		long hits = statementHits.sum();
+		long total = hits + statementMisses.sum();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	@Override
+	public String toString() {
+		long count = borrowed.sum();
+		return "JdbcConnectionPool[size=" + size + ", active=" + getActive() + ", idle=" + getIdle() + ", created="
+				+ created.sum() + ", borrowed=" + count + ", discarded=" + discarded.sum() + ", validationFailures="
+				+ validationFailures.sum() + ", avgWaitMillis=" + (count == 0 ? 0 : waitMillisTotal.sum() / count)
+				+ ", maxWaitMillis=" + maxWaitMillis.get() + ", statementHits=" + statementHits.sum()
+				+ ", statementMisses=" + statementMisses.sum() + "]";
+	}
+
+	/**
+	 * A pooled connection with its prepared statements.
+	 */
+	final class PooledConnection {
+
+		/** The connection. */
+		private final Connection connection;
+
+		/** The prepared statements by sql, in access order. */
+		private final Map<String, PreparedStatement> statements;
+
+		/** The last use. */
+		private long lastUsed = System.currentTimeMillis();
+
+		/** The initial auto commit mode. */
+		private final boolean autoCommit;
+
+		/** The initial read only mode. */
+		private final boolean readOnly;
+
+		/** The initial transaction isolation. */
+		private final int isolation;
+
+		/**
+		 * Instantiates a new pooled connection.
+		 *
+		 * @param connection the connection
+		 * @throws SQLException the SQL exception
+		 */
+		private PooledConnection(Connection connection) throws SQLException {
+			this.connection = connection;
+			this.autoCommit = connection.getAutoCommit();
+			this.readOnly = connection.isReadOnly();
+			this.isolation = connection.getTransactionIsolation();
+			this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+					if (size() > statementCacheSize) {
+						closeQuietly(eldest.getValue());
+						return true;
+					}
+					return false;
+				}
+
+				@Override
+				public void clear() {
+					values().forEach(PooledConnection::closeQuietly);
+					super.clear();
+				}
+			};
+		}
+
+		/**
+		 * Gets the connection.
+		 *
+		 * @return the connection
+		 */
+		Connection getConnection() {
+			return connection;
+		}
+
+		/**
+		 * Gets a prepared statement from the cache or prepares it.
+		 *
+		 * @param sql the sql
+		 * @return the prepared statement
+		 * @throws SQLException the SQL exception
+		 */
+		PreparedStatement prepare(String sql) throws SQLException {
+			PreparedStatement ps = statements.get(sql);
+			if (ps != null && !ps.isClosed()) {
+				statementHits.increment();
+				ps.clearParameters();
+				return ps;
+			}
+			statementMisses.increment();
+			ps = connection.prepareStatement(sql);
+			if (statementCacheSize > 0) {
+				statements.put(sql, ps);
+			}
+			return ps;
+		}
+
+		/**
+		 * Closes a statement, if it is not cached.
+		 *
+		 * @param ps the prepared statement
+		 */
+		void done(PreparedStatement ps) {
+			if (statementCacheSize == 0) {
+				closeQuietly(ps);
+			}
+		}
+
+		/**
+		 * Close quietly.
+		 *
+		 * @param ps the prepared statement
+		 */
+		private static void closeQuietly(PreparedStatement ps) {
+			try {
+				ps.close();
+			} catch (SQLException e) {
+				log.fine(() -> "closing a statement failed: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -12,15 +12,32 @@
  */
 package com.github.cpo1964.utils;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+
+import com.github.cpo1964.utils.JdbcConnectionPool.PooledConnection;
 
 /**
  * The type Jdbc helper.
+ * <p>
+ * The connections are taken from a {@link JdbcConnectionPool}, which is
+ * created on first use from the config and the driver name. The pool is
+ * configured by the setters or the system properties 'jdbc.pool.size' (default
+ * 4), 'jdbc.pool.statementCache' (prepared statements per connection, default
+ * 50), 'jdbc.pool.validationSeconds' (timeout of a validation, default 2),
+ * 'jdbc.pool.validationIdleSeconds' (idle time before a connection is validated
+ * again, default 30) and 'jdbc.pool.waitSeconds' (default 30).
  */
 public class JdbcHelper {
 
@@ -48,9 +65,34 @@ public class JdbcHelper {
 	private static String drivername;
 
 	/**
-	 * The constant con.
+	 * The pool size.
+	 */
+	private static int poolSize = Integer.getInteger("jdbc.pool.size", 4);
+
+	/**
+	 * The statement cache size per connection.
+	 */
+	private static int statementCacheSize = Integer.getInteger("jdbc.pool.statementCache", 50);
+
+	/**
+	 * The validation timeout in seconds.
+	 */
+	private static int validationTimeout = Integer.getInteger("jdbc.pool.validationSeconds", 2);
+
+	/**
+	 * The idle seconds after which a connection is validated.
 	 */
-	private static Connection con;
+	private static int validationIdleSeconds = Integer.getInteger("jdbc.pool.validationIdleSeconds", 30);
+
+	/**
+	 * The seconds to wait for a connection.
+	 */
+	private static int waitSeconds = Integer.getInteger("jdbc.pool.waitSeconds", 30);
+
+	/**
+	 * The pool.
+	 */
+	private static JdbcConnectionPool pool;
 
 	/**
 	 * Instantiates a new jdbc helper.
@@ -63,8 +105,61 @@ public class JdbcHelper {
 	 *
 	 * @param driverName the driver name
 	 */
-	public static void setDriverName(String driverName) {
+	public static synchronized void setDriverName(String driverName) {
 		drivername = driverName;
+		closePool();
+	}
+
+	/**
+	 * Sets the pool size, an existing pool is closed.
+	 *
+	 * @param size the size
+	 */
+	public static synchronized void setPoolSize(int size) {
+		poolSize = size;
+		closePool();
+	}
+
+	/**
+	 * Sets the number of cached prepared statements per connection, 0 disables
+	 * the cache. An existing pool is closed.
+	 *
+	 * @param size the size
+	 */
+	public static synchronized void setStatementCacheSize(int size) {
+		statementCacheSize = size;
+		closePool();
+	}
+
+	/**
+	 * Sets the validation of idle connections, an existing pool is closed.
+	 *
+	 * @param timeoutSeconds the timeout of a validation
+	 * @param idleSeconds    the idle time before a connection is validated
+	 */
+	public static synchronized void setValidation(int timeoutSeconds, int idleSeconds) {
+		validationTimeout = timeoutSeconds;
+		validationIdleSeconds = idleSeconds;
+		closePool();
+	}
+
+	/**
+	 * Gets the pool statistics.
+	 *
+	 * @return the pool statistics, empty if no pool is open
+	 */
+	public static synchronized String getPoolStats() {
+		return pool == null ? "" : pool.toString();
+	}
+
+	/**
+	 * Closes the pool, it is created again on the next use.
+	 */
+	public static synchronized void closePool() {
+		if (pool != null) {
+			pool.close();
+			pool = null;
+		}
 	}
 
 	/**
@@ -81,25 +176,28 @@ public class JdbcHelper {
 	 *
 	 * @param config the config
 	 */
-	static void setConfig(HashMap<String, String> config) {
+	static synchronized void setConfig(HashMap<String, String> config) {
 		JdbcHelper.config = config;
+		closePool();
 	}
 
 	/**
-	 * Gets connection.
+	 * Gets the pool.
 	 *
-	 * @return the connection
+	 * @return the pool
 	 * @throws ClassNotFoundException the class not found exception
 	 */
-	private static Connection getConnection() throws ClassNotFoundException {
-		HashMap<String, String> map = getConfig();
-		Class.forName(drivername);
-		try {
-			con = DriverManager.getConnection(map.get(URL), map.get(USERNAME), map.get(PASSWORD));
-		} catch (SQLException ex) {
-			// log an exception ...
+	private static synchronized JdbcConnectionPool getPool() throws ClassNotFoundException {
+		if (pool == null) {
+			HashMap<String, String> map = getConfig();
+			if (drivername != null) {
+				Class.forName(drivername);
+			}
+			pool = new JdbcConnectionPool(map.get(URL), map.get(USERNAME), map.get(PASSWORD), poolSize,
+					statementCacheSize, validationTimeout, TimeUnit.SECONDS.toMillis(validationIdleSeconds),
+					TimeUnit.SECONDS.toMillis(waitSeconds));
 		}
-		return con;
+		return pool;
 	}
 
 	/**
@@ -139,25 +237,165 @@ public class JdbcHelper {
 	}
 
 	/**
-	 * Execute result set.
+	 * Execute result set. The result is detached from the connection, so it can
+	 * be read after the connection went back to the pool.
 	 *
 	 * @param sql the sql
-	 * @return the result set
+	 * @return the result set or null, if the query failed
 	 * @throws SQLException           the sql exception
 	 * @throws ClassNotFoundException the class not found exception
 	 */
 	static ResultSet execute(String sql) throws SQLException, ClassNotFoundException {
-		Connection con = getConnection();
-		ResultSet rs = null;
-		if (con != null) {
-			try (Statement stmt = con.createStatement()) {
-				rs = stmt.executeQuery(sql);
-				con.commit();
-			} catch (SQLException e) {
-				return null;
+		CachedRowSet crs = RowSetProvider.newFactory().createCachedRowSet();
+		JdbcConnectionPool connections = getPool();
+		PooledConnection pc = connections.borrow();
+		boolean broken = false;
+		try {
+			PreparedStatement ps = pc.prepare(sql);
+			try (ResultSet rs = ps.executeQuery()) {
+				crs.populate(rs);
+			} finally {
+				pc.done(ps);
 			}
+			commit(pc);
+		} catch (SQLException e) {
+			broken = isConnectionError(e);
+			return null;
+		} finally {
+			connections.release(pc, broken);
 		}
-		return rs;
+		return crs;
+	}
+
+	/**
+	 * Runs a parameterized query and maps all rows.
+	 *
+	 * @param sql    the sql with '?' placeholders
+	 * @param params the parameters
+	 * @return the rows as maps from column label to value, in column order
+	 * @throws SQLException           the SQL exception
+	 * @throws ClassNotFoundException the class not found exception
+	 */
+	public static List<Map<String, Object>> query(String sql, Object... params)
+			throws SQLException, ClassNotFoundException {
+		JdbcConnectionPool connections = getPool();
+		PooledConnection pc = connections.borrow();
+		boolean broken = false;
+		try {
+			PreparedStatement ps = pc.prepare(sql);
+			List<Map<String, Object>> rows = new ArrayList<>();
+			try {
+				bind(ps, params);
+				try (ResultSet rs = ps.executeQuery()) {
+					ResultSetMetaData meta = rs.getMetaData();
+					int count = meta.getColumnCount();
+					while (rs.next()) {
+						Map<String, Object> row = new LinkedHashMap<>(count * 2);
+						for (int i = 1; i <= count; i++) {
+							row.put(meta.getColumnLabel(i), rs.getObject(i));
+						}
+						rows.add(row);
+					}
+				}
+			} finally {
+				pc.done(ps);
+			}
+			commit(pc);
+			return rows;
+		} catch (SQLException e) {
+			broken = isConnectionError(e);
+			throw e;
+		} finally {
+			connections.release(pc, broken);
+		}
+	}
+
+	/**
+	 * Runs a parameterized query and gets a value of the first row.
+	 *
+	 * @param sql    the sql with '?' placeholders
+	 * @param column the column label
+	 * @param params the parameters
+	 * @return the value as string or null, if there is no row
+	 * @throws SQLException           the SQL exception
+	 * @throws ClassNotFoundException the class not found exception
+	 */
+	public static String queryForValue(String sql, String column, Object... params)
+			throws SQLException, ClassNotFoundException {
+		List<Map<String, Object>> rows = query(sql, params);
+		if (rows.isEmpty()) {
+			return null;
+		}
+		Object value = rows.get(0).get(column);
+		return value == null ? null : value.toString();
+	}
+
+	/**
+	 * Runs a parameterized insert, update or delete.
+	 *
+	 * @param sql    the sql with '?' placeholders
+	 * @param params the parameters
+	 * @return the number of affected rows
+	 * @throws SQLException           the SQL exception
+	 * @throws ClassNotFoundException the class not found exception
+	 */
+	public static int update(String sql, Object... params) throws SQLException, ClassNotFoundException {
+		JdbcConnectionPool connections = getPool();
+		PooledConnection pc = connections.borrow();
+		boolean broken = false;
+		try {
+			PreparedStatement ps = pc.prepare(sql);
+			int count;
+			try {
+				bind(ps, params);
+				count = ps.executeUpdate();
+			} finally {
+				pc.done(ps);
+			}
+			commit(pc);
+			return count;
+		} catch (SQLException e) {
+			broken = isConnectionError(e);
+			throw e;
+		} finally {
+			connections.release(pc, broken);
+		}
+	}
+
+	/**
+	 * Binds the parameters.
+	 *
+	 * @param ps     the prepared statement
+	 * @param params the parameters
+	 * @throws SQLException the SQL exception
+	 */
+	private static void bind(PreparedStatement ps, Object... params) throws SQLException {
+		for (int i = 0; params != null && i < params.length; i++) {
+			ps.setObject(i + 1, params[i]);
+		}
+	}
+
+	/**
+	 * Commits, if the connection is not in auto commit mode.
+	 *
+	 * @param pc the pooled connection
+	 * @throws SQLException the SQL exception
+	 */
+	private static void commit(PooledConnection pc) throws SQLException {
+		if (!pc.getConnection().getAutoCommit()) {
+			pc.getConnection().commit();
+		}
+	}
+
+	/**
+	 * Checks if the exception is caused by a broken connection (sql state class
+	 * '08').
+	 *
+	 * @param e the exception
+	 * @return true, if the connection should be discarded
+	 */
+	private static boolean isConnectionError(SQLException e) {
+		return e.getSQLState() != null && e.getSQLState().startsWith("08");
 	}
 
 }
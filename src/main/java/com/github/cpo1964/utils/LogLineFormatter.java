@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The Class LogLineFormatter.
+ * <p>
+ * Formats a record by a {@link String#format} pattern with the arguments date
+ * (1), level (2) and message (3), like {@link MaxlevelStreamHandler#getFormat()}.
+ * The pattern is parsed once; '%tF', '%tT', '%s' with a width and '%n' are
+ * written directly, the date is formatted once per second. A pattern with
+ * other conversions is passed to String.format.
+ */
+public class LogLineFormatter extends Formatter {
+
+	/** The conversions of a format pattern. */
+	private static final Pattern CONVERSION = Pattern.compile("%(\\d+\\$)?(-)?(\\d+)?(t[FT]|[sn%])|%");
+
+	/** The line separator. */
+	private static final String NEWLINE = System.lineSeparator();
+
+	/** The pattern source. */
+	private final Supplier<String> source;
+
+	/** The parsed pattern. */
+	private volatile Parsed parsed;
+
+	/** The date and time of the last second formatted. */
+	private volatile Second second = new Second(Long.MIN_VALUE, "", "");
+
+	/**
+	 * Instantiates a new log line formatter, the pattern is parsed again when the
+	 * source answers another one.
+	 *
+	 * @param source the pattern source
+	 */
+	public LogLineFormatter(Supplier<String> source) {
+		this.source = source;
+	}
+
+	@Override
+	public String format(LogRecord lr) {
+		String pattern = source.get();
+		Parsed p = parsed;
+		if (p == null || !p.pattern.equals(pattern)) {
+			p = new Parsed(pattern);
+			parsed = p;
+		}
+		String level = lr.getLevel().getLocalizedName();
+		if (p.segments == null) {
+			return String.format(pattern, new Date(lr.getMillis()), level, lr.getMessage());
+		}
+		StringBuilder bld = new StringBuilder(64 + (lr.getMessage() == null ? 4 : lr.getMessage().length()));
+		for (Segment segment : p.segments) {
+			switch (segment.type) {
+			case 'F':
+				bld.append(secondOf(lr.getMillis()).date);
+				break;
+			case 'T':
+				bld.append(secondOf(lr.getMillis()).time);
+				break;
+			case 's':
+				String value = segment.arg == 1 ? String.valueOf(new Date(lr.getMillis()))
+						: segment.arg == 2 ? level : String.valueOf(lr.getMessage());
+				if (!segment.left) {
+					pad(bld, segment.width - value.length());
+				}
+				bld.append(value);
+				if (segment.left) {
+					pad(bld, segment.width - value.length());
+				}
+				break;
+			case 'n':
+				bld.append(NEWLINE);
+				break;
+			default:
+				bld.append(segment.literal);
+				break;
+			}
+		}
+		return bld.toString();
+	}
+
+	/**
+	 * Gets the formatted second of a time.
+	 *
+	 * @param millis the millis
+	 * @return the second
+	 */
+	private Second secondOf(long millis) {
+		long epochSecond = Math.floorDiv(millis, 1000);
+		Second s = second;
+		if (s.epochSecond != epochSecond) {
+			LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+			s = new Second(epochSecond, t.toLocalDate().toString(),
+					String.format("%02d:%02d:%02d", t.getHour(), t.getMinute(), t.getSecond()));
+			second = s;
+		}
+		return s;
+	}
+
+	/**
+	 * Pads with blanks.
+	 *
+	 * @param bld   the builder
+	 * @param count the number of blanks
+	 */
+	private static void pad(StringBuilder bld, int count) {
+		for (int i = 0; i < count; i++) {
+			bld.append(' ');
+		}
+	}
+
+	/**
+	 * A parsed pattern.
+	 */
+	private static final class Parsed {
+
+		/** The pattern. */
+		private final String pattern;
+
+		/** The segments, null if String.format has to be used. */
+		private final List<Segment> segments;
+
+		/**
+		 * Parses a pattern.
+		 *
+		 * @param pattern the pattern
+		 */
+		Parsed(String pattern) {
+			this.pattern = pattern;
+			List<Segment> list = new ArrayList<>();
+			Matcher m = CONVERSION.matcher(pattern);
+			int last = 0;
+			int next = 1;
+			while (list != null && m.find()) {
+				if (m.start() > last) {
+					list.add(new Segment(pattern.substring(last, m.start())));
+				}
+				last = m.end();
+				String conversion = m.group(4);
+				if (conversion == null) {
+					list = null;
+				} else if ("%".equals(conversion)) {
+					list.add(new Segment("%"));
+				} else if ("n".equals(conversion)) {
+					list.add(new Segment('n', 0, 0, false));
+				} else {
+					int arg = m.group(1) == null ? next++
+							: Integer.parseInt(m.group(1).substring(0, m.group(1).length() - 1));
+					int width = m.group(3) == null ? 0 : Integer.parseInt(m.group(3));
+					char type = conversion.charAt(conversion.length() - 1);
+					if (arg < 1 || arg > 3 || type != 's' && (arg != 1 || width > 0)) {
+						list = null;
+					} else {
+						list.add(new Segment(type, arg, width, m.group(2) != null));
+					}
+				}
+			}
+			if (list != null && last < pattern.length()) {
+				list.add(new Segment(pattern.substring(last)));
+			}
+			this.segments = list;
+		}
+	}
+
+	/**
+	 * A segment of a parsed pattern.
+	 */
+	private static final class Segment {
+
+		/** The type, 'F', 'T', 's', 'n' or 0 for a literal. */
+		private final char type;
+
+		/** The argument. */
+		private final int arg;
+
+		/** The width. */
+		private final int width;
+
+		/** The left justified flag. */
+		private final boolean left;
+
+		/** The literal. */
+		private final String literal;
+
+		/**
+		 * Instantiates a new conversion segment.
+		 *
+		 * @param type  the type
+		 * @param arg   the argument
+		 * @param width the width
+		 * @param left  the left justified flag
+		 */
+		Segment(char type, int arg, int width, boolean left) {
+			this.type = type;
+			this.arg = arg;
+			this.width = width;
+			this.left = left;
+			this.literal = null;
+		}
+
+		/**
+		 * Instantiates a new literal segment.
+		 *
+		 * @param literal the literal
+		 */
+		Segment(String literal) {
+			this.type = 0;
+			this.arg = 0;
+			this.width = 0;
+			this.left = false;
+			this.literal = literal;
+		}
+	}
+
+	/**
+	 * A formatted second.
+	 */
+	private static final class Second {
+
+		/** The epoch second. */
+		private final long epochSecond;
+
+		/** The date, like '%tF'. */
+		private final String date;
+
+		/** The time, like '%tT'. */
+		private final String time;
+
+		/**
+		 * Instantiates a new second.
+		 *
+		 * @param epochSecond the epoch second
+		 * @param date        the date
+		 * @param time        the time
+		 */
+		Second(long epochSecond, String date, String time) {
+			this.epochSecond = epochSecond;
+			this.date = date;
+			this.time = time;
+		}
+	}
+}
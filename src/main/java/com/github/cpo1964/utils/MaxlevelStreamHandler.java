@@ -19,7 +19,6 @@ package com.github.cpo1964.utils;
  * @author Kai Goergen
  */
 import java.io.PrintStream;
-import java.util.Date;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -97,7 +96,8 @@ public class MaxlevelStreamHandler extends StreamHandler {
 	}
 
 	/**
-	 * Sets the up max level stream handler.
+	 * Sets the up max level stream handler. With 'log.async=true' the records
+	 * are written by the shared {@link AsyncLogHandler}s instead.
 	 *
 	 * @param logger the new up max level stream handler
 	 */
@@ -105,21 +105,19 @@ public class MaxlevelStreamHandler extends StreamHandler {
 		if (logger.getHandlers().length > 0) {
 			return;
 		}
+		if (Boolean.getBoolean("log.async")) {
+			logger.addHandler(AsyncHandlers.OUT);
+			logger.addHandler(AsyncHandlers.ERR);
+			logger.setUseParentHandlers(false);
+			return;
+		}
 		Formatter formatter = new SimpleFormatter();
 		// must set before the Logger
 		// setup all logs that are smaller than WARNINGS to stdout
 		MaxlevelStreamHandler outSh = new MaxlevelStreamHandler(System.out, formatter);
 		outSh.setLevel(Level.ALL);
 		outSh.setMaxlevel(Level.SEVERE);
-		outSh.setFormatter(new SimpleFormatter() {
-//			private static final String format = "[%1$tF %1$tT] [%2$-7s] %3$s %n";
-
-			@Override
-			public synchronized String format(LogRecord lr) {
-				return String.format(getFormat(), new Date(lr.getMillis()), lr.getLevel().getLocalizedName(),
-						lr.getMessage());
-			}
-		});
+		outSh.setFormatter(new LogLineFormatter(MaxlevelStreamHandler::getFormat));
 		logger.addHandler(outSh);
 
 		// setup all warnings to stdout & warnings and higher to stderr
@@ -132,6 +130,28 @@ public class MaxlevelStreamHandler extends StreamHandler {
 		logger.setUseParentHandlers(false);
 	}
 
+	/**
+	 * The handlers shared by all loggers with 'log.async=true', created on first
+	 * use.
+	 */
+	private static final class AsyncHandlers {
+
+		/** The handler of stdout, all records up to severe. */
+		static final AsyncLogHandler OUT = new AsyncLogHandler(System.out,
+				new LogLineFormatter(MaxlevelStreamHandler::getFormat), Level.ALL, Level.SEVERE);
+
+		/** The handler of stderr, warnings and higher. */
+		static final AsyncLogHandler ERR = new AsyncLogHandler(System.err, new SimpleFormatter(), Level.WARNING,
+				Level.OFF);
+
+		/**
+		 * Instantiates a new async handlers.
+		 */
+		private AsyncHandlers() {
+			throw new IllegalStateException("Utility class");
+		}
+	}
+
 	/**
 	 * Gets the format.
 	 *
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContextBuilder;
+
+/**
+ * The Class RestConnectionPool.
+ * <p>
+ * Holds the connection managers shared by all clients of the
+ * {@link RestHelper}, one trusting all certificates (as the clients built with
+ * 'useSSL') and one with the default trust store. Idle and expired connections
+ * are closed by a background thread.
+ * <p>
+ * Configured by the system properties 'rest.maxTotal' (default 200),
+ * 'rest.maxPerRoute' (default 50), 'rest.keepAliveSeconds' (used if the server
+ * sends no keep alive, default 30), 'rest.idleEvictSeconds' (default 30),
+ * 'rest.connectTimeout', 'rest.socketTimeout' and
+ * 'rest.connectionRequestTimeout' (milliseconds, default -1 for the system
+ * default).
+ */
+public class RestConnectionPool {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(RestConnectionPool.class.getSimpleName());
+
+	/** The max total connections. */
+	private static final int MAX_TOTAL = Integer.getInteger("rest.maxTotal", 200);
+
+	/** The max connections per route. */
+	private static final int MAX_PER_ROUTE = Integer.getInteger("rest.maxPerRoute", 50);
+
+	/** The default keep alive. */
+	private static final long KEEP_ALIVE_MILLIS = TimeUnit.SECONDS
+			.toMillis(Integer.getInteger("rest.keepAliveSeconds", 30));
+
+	/** The idle time after which a connection is closed. */
+	private static final int IDLE_EVICT_SECONDS = Math.max(1, Integer.getInteger("rest.idleEvictSeconds", 30));
+
+	/** The trusting connection manager. */
+	private static final PoolingHttpClientConnectionManager TRUST_ALL = newManager(true);
+
+	/** The default connection manager. */
+	private static final PoolingHttpClientConnectionManager DEFAULT = newManager(false);
+
+	/** The keep alive strategy. */
+	private static final ConnectionKeepAliveStrategy KEEP_ALIVE = (response, context) -> {
+		long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+		return keepAlive > 0 ? keepAlive : KEEP_ALIVE_MILLIS;
+	};
+
+	/** The request config. */
+	private static final RequestConfig REQUEST_CONFIG = RequestConfig.custom().setCookieSpec(CookieSpecs.STANDARD)
+			.setConnectTimeout(Integer.getInteger("rest.connectTimeout", -1))
+			.setSocketTimeout(Integer.getInteger("rest.socketTimeout", -1))
+			.setConnectionRequestTimeout(Integer.getInteger("rest.connectionRequestTimeout", -1)).build();
+
+	static {
+		ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "rest-idle-evictor");
+			t.setDaemon(true);
+			return t;
+		});
+		evictor.scheduleWithFixedDelay(RestConnectionPool::evict, IDLE_EVICT_SECONDS, IDLE_EVICT_SECONDS,
+				TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			evictor.shutdownNow();
+			TRUST_ALL.shutdown();
+			DEFAULT.shutdown();
+		}, "rest-pool-shutdown"));
+	}
+
+	/**
+	 * Instantiates a new rest connection pool.
+	 */
+	private RestConnectionPool() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Gets a shared connection manager.
+	 *
+	 * @param trustAll true for the manager trusting all certificates
+	 * @return the connection manager
+	 */
+	static PoolingHttpClientConnectionManager getManager(boolean trustAll) {
+		return trustAll ? TRUST_ALL : DEFAULT;
+	}
+
+	/**
+	 * Gets the keep alive strategy.
+	 *
+	 * @return the keep alive strategy
+	 */
+	static ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+		return KEEP_ALIVE;
+	}
+
+	/**
+	 * Gets the request config.
+	 *
+	 * @return the request config
+	 */
+	static RequestConfig getRequestConfig() {
+		return REQUEST_CONFIG;
+	}
+
+	/**
+	 * Gets the pool statistics of both connection managers.
+	 *
+	 * @return the statistics
+	 */
+	public static String getStats() {
+		return "trustAll " + format(TRUST_ALL.getTotalStats()) + ", default " + format(DEFAULT.getTotalStats());
+	}
+
+	/**
+	 * Gets the pool statistics.
+	 *
+	 * @param trustAll true for the manager trusting all certificates
+	 * @return the pool stats
+	 */
+	public static PoolStats getTotalStats(boolean trustAll) {
+		return getManager(trustAll).getTotalStats();
+	}
+
+	/**
+	 * Formats pool stats.
+	 *
+	 * @param stats the stats
+	 * @return the string
+	 */
+	private static String format(PoolStats stats) {
+		return "[leased=" + stats.getLeased() + ", available=" + stats.getAvailable() + ", pending="
+				+ stats.getPending() + ", max=" + stats.getMax() + "]";
+	}
+
+	/**
+	 * Closes expired and idle connections.
+	 */
+	private static void evict() {
+		for (PoolingHttpClientConnectionManager manager : new PoolingHttpClientConnectionManager[] { TRUST_ALL,
+				DEFAULT }) {
+			manager.closeExpiredConnections();
+			manager.closeIdleConnections(IDLE_EVICT_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Creates a connection manager.
+	 *
+	 * @param trustAll true for trusting all certificates
+	 * @return the pooling http client connection manager
+	 */
+	private static PoolingHttpClientConnectionManager newManager(boolean trustAll) {
+		PoolingHttpClientConnectionManager manager;
+		if (trustAll) {
+			try {
+				SSLContextBuilder sslContextBuilder = new SSLContextBuilder();
+				sslContextBuilder.loadTrustMaterial(null, (chain, authType) -> true);
+				SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(sslContextBuilder.build(),
+						SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+				Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+						.register("http", PlainConnectionSocketFactory.getSocketFactory())
+						.register("https", sslSocketFactory).build();
+				manager = new PoolingHttpClientConnectionManager(registry);
+			} catch (NoSuchAlgorithmException | KeyStoreException | KeyManagementException e) {
+				log.warning(() -> "trusting ssl context not available, using the default: " + e.getMessage());
+				manager = new PoolingHttpClientConnectionManager();
+			}
+		} else {
+			manager = new PoolingHttpClientConnectionManager();
+		}
+		manager.setMaxTotal(MAX_TOTAL);
+		manager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+		// revalidate connections idle for more than 2s before reuse (stale check)
+		manager.setValidateAfterInactivity(2000);
+		return manager;
+	}
+}
@@ -12,9 +12,7 @@
  */
 package com.github.cpo1964.utils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -22,6 +20,12 @@ import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import org.apache.http.Header;
@@ -30,26 +34,31 @@ import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.CookieStore;
-import org.apache.http.client.config.CookieSpecs;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.util.EntityUtils;
 
 /**
  * The Class RestHelper.
+ * <p>
+ * The doHttp*Async variants run on a bounded pool of daemon threads
+ * ('rest.async.threads', default 16) and return futures, e.g. to set up test
+ * data with parallel calls and join on them before the browser part starts.
+ * <p>
+ * GET requests go through the {@link RestResponseCache}, if it is enabled.
  */
 public class RestHelper {
 
@@ -66,9 +75,6 @@ public class RestHelper {
 	/** The httpclient. */
 	private static CloseableHttpClient httpclient;
 
-	/** The http response. */
-	private static CloseableHttpResponse httpResponse;
-
 	static {
 		if (httpclient == null) {
 			try {
@@ -88,7 +94,9 @@ public class RestHelper {
 	}
 
 	/**
-	 * Builds the http client.
+	 * Builds a http client on the shared connection pool of the
+	 * {@link RestConnectionPool}, closing it does not close the pooled
+	 * connections.
 	 *
 	 * @param proxy  the proxy
 	 * @param store  the store
@@ -104,24 +112,15 @@ public class RestHelper {
 		if (cookieStore == null) {
 			cookieStore = new BasicCookieStore();
 		}
-		SSLContextBuilder sslContextBuilder = new SSLContextBuilder();
-		sslContextBuilder.loadTrustMaterial(null, (chain, authType) -> true);
-		RequestConfig requestConfig = RequestConfig.custom().setCookieSpec(CookieSpecs.STANDARD).build();
-		CloseableHttpClient httpclient;
+		// the clients are cheap, the connections are pooled by the shared manager
 		HttpClientBuilder httpCB = HttpClientBuilder.create().disableRedirectHandling()
-				.setDefaultCookieStore(cookieStore).setDefaultRequestConfig(requestConfig);
-		if (useSSL) {
-			SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(sslContextBuilder.build(),
-					SSLConnectionSocketFactory.getDefaultHostnameVerifier());
-
-			httpCB.setSSLSocketFactory(sslSocketFactory);
-		}
+				.setDefaultCookieStore(cookieStore).setDefaultRequestConfig(RestConnectionPool.getRequestConfig())
+				.setConnectionManager(RestConnectionPool.getManager(useSSL)).setConnectionManagerShared(true)
+				.setKeepAliveStrategy(RestConnectionPool.getKeepAliveStrategy());
 		if (proxy != null) {
-			httpclient = httpCB.setProxy(proxy).build();
-		} else {
-			httpclient = httpCB.build();
+			httpCB.setProxy(proxy);
 		}
-		return httpclient;
+		return httpCB.build();
 	}
 
 	/**
@@ -208,7 +207,7 @@ public class RestHelper {
 				httpMethod.addHeader(header.getName(), header.getValue());
 			}
 		}
-		return client.execute(httpMethod);
+		return RestResponseCache.execute(client, httpMethod);
 	}
 
 	/**
@@ -219,13 +218,7 @@ public class RestHelper {
 	 * @throws IOException the io exception
 	 */
 	public static int doHttpGet(String uri) throws IOException {
-		HttpRequestBase httpMethod = new HttpGet(uri);
-		try {
-			httpResponse = httpclient.execute(httpMethod);
-			return httpResponse.getStatusLine().getStatusCode();
-		} finally {
-			httpResponse.close();
-		}
+		return getStatusCode(new HttpGet(uri));
 	}
 
 	/**
@@ -244,7 +237,7 @@ public class RestHelper {
 		for (NameValuePair header : headers) {
 			httpMethod.addHeader(header.getName(), header.getValue());
 		}
-		return client.execute(httpMethod);
+		return RestResponseCache.execute(client, httpMethod);
 	}
 
 	/**
@@ -268,9 +261,7 @@ public class RestHelper {
 	 */
 	public static int doHttpGet(URIBuilder uribuilder) throws IOException {
 		try {
-			HttpRequestBase httpMethod = new HttpGet(uribuilder.build());
-			httpResponse = httpclient.execute(httpMethod);
-			return httpResponse.getStatusLine().getStatusCode();
+			return getStatusCode(new HttpGet(uribuilder.build()));
 		} catch (IOException | URISyntaxException e) {
 			throw new IOException(e.getMessage());
 		}
@@ -288,8 +279,7 @@ public class RestHelper {
 	public static int doHttpPost(String uri, List<NameValuePair> parameters) throws IOException {
 		HttpPost httpMethod = new HttpPost(uri);
 		httpMethod.setEntity(new UrlEncodedFormEntity(parameters));
-		httpResponse = httpclient.execute(httpMethod);
-		return httpResponse.getStatusLine().getStatusCode();
+		return getStatusCode(httpMethod);
 	}
 
 	/**
@@ -300,9 +290,7 @@ public class RestHelper {
 	 * @throws IOException the io exception
 	 */
 	public static int doHttpPut(String uri) throws IOException {
-		HttpRequestBase httpMethod = new HttpPut(uri);
-		httpResponse = httpclient.execute(httpMethod);
-		return httpResponse.getStatusLine().getStatusCode();
+		return getStatusCode(new HttpPut(uri));
 	}
 
 	/**
@@ -321,7 +309,7 @@ public class RestHelper {
 		for (NameValuePair header : headers) {
 			httpMethod.addHeader(header.getName(), header.getValue());
 		}
-		return client.execute(httpMethod);
+		return RestResponseCache.execute(client, httpMethod);
 	}
 
 	/**
@@ -340,7 +328,7 @@ public class RestHelper {
 		for (NameValuePair header : headers) {
 			httpMethod.addHeader(header.getName(), header.getValue());
 		}
-		return client.execute(httpMethod);
+		return RestResponseCache.execute(client, httpMethod);
 	}
 
 	/**
@@ -355,6 +343,121 @@ public class RestHelper {
 		return doHttpPut(httpclient, uri, headers);
 	}
 
+	/**
+	 * Führt ein HTTP-GET asynchron durch.
+	 *
+	 * @param uri     Die URL auf welche der GET-Request abgesetzt werden soll.
+	 * @param headers Die Header-Informationen als NameValue-Pairs, optional.
+	 * @return the future of the buffered response
+	 */
+	public static CompletableFuture<CloseableHttpResponse> doHttpGetAsync(String uri, List<NameValuePair> headers) {
+		return executeAsync(() -> new HttpGet(uri), headers);
+	}
+
+	/**
+	 * Führt ein HTTP-POST asynchron durch.
+	 *
+	 * @param uri         Die URI gegen welche der Request abgesetzt werden soll.
+	 * @param contentType the content type, default is json
+	 * @param content     Der zu sendende Content.
+	 * @param headers     Die Header-Informationen als NameValue-Pairs, optional.
+	 * @return the future of the buffered response
+	 */
+	public static CompletableFuture<CloseableHttpResponse> doHttpPostAsync(String uri, ContentType contentType,
+			String content, List<NameValuePair> headers) {
+		return executeAsync(() -> {
+			HttpPost httpMethod = new HttpPost(uri);
+			httpMethod.setEntity(new ByteArrayEntity(content.getBytes(StandardCharsets.UTF_8),
+					contentType == null ? ContentType.APPLICATION_JSON : contentType));
+			return httpMethod;
+		}, headers);
+	}
+
+	/**
+	 * Führt ein HTTP-PUT asynchron durch.
+	 *
+	 * @param uri     Die URL auf welche der PUT-Request abgesetzt werden soll.
+	 * @param headers Die Header-Informationen als NameValue-Pairs, optional.
+	 * @return the future of the buffered response
+	 */
+	public static CompletableFuture<CloseableHttpResponse> doHttpPutAsync(String uri, List<NameValuePair> headers) {
+		return executeAsync(() -> new HttpPut(uri), headers);
+	}
+
+	/**
+	 * Führt ein HTTP-DELETE asynchron durch.
+	 *
+	 * @param uri     Die URL auf welche der DELETE-Request abgesetzt werden
+	 *                soll.
+	 * @param headers Die Header-Informationen als NameValue-Pairs, optional.
+	 * @return the future of the buffered response
+	 */
+	public static CompletableFuture<CloseableHttpResponse> doHttpDeleteAsync(String uri,
+			List<NameValuePair> headers) {
+		return executeAsync(() -> new HttpDelete(uri), headers);
+	}
+
+	/**
+	 * Executes a request with the shared client on the async executor. The
+	 * entity is buffered and the connection released before the future
+	 * completes, so the response stays readable without holding a pooled
+	 * connection.
+	 *
+	 * @param request the request factory, called on the executor
+	 * @param headers the headers, optional
+	 * @return the future of the buffered response
+	 */
+	private static CompletableFuture<CloseableHttpResponse> executeAsync(Supplier<HttpRequestBase> request,
+			List<NameValuePair> headers) {
+		return CompletableFuture.supplyAsync(() -> {
+			HttpRequestBase httpMethod = request.get();
+			if (headers != null) {
+				for (NameValuePair header : headers) {
+					httpMethod.addHeader(header.getName(), header.getValue());
+				}
+			}
+			try {
+				CloseableHttpResponse response = RestResponseCache.execute(httpclient, httpMethod);
+				try {
+					HttpEntity entity = response.getEntity();
+					if (entity != null) {
+						response.setEntity(new BufferedHttpEntity(entity));
+						EntityUtils.consume(entity);
+					}
+				} finally {
+					response.close();
+				}
+				return response;
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, AsyncExecutor.EXECUTOR);
+	}
+
+	/**
+	 * The executor of the async calls, created on first use. The number of
+	 * threads is set by the system property 'rest.async.threads' (default 16).
+	 */
+	private static final class AsyncExecutor {
+
+		/** The thread count. */
+		private static final AtomicInteger THREADS = new AtomicInteger();
+
+		/** The executor. */
+		static final ExecutorService EXECUTOR = Executors
+				.newFixedThreadPool(Math.max(1, Integer.getInteger("rest.async.threads", 16)), r -> {
+					Thread t = new Thread(r, "rest-async-" + THREADS.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+
+		/**
+		 * Instantiates a new async executor.
+		 */
+		private AsyncExecutor() {
+		}
+	}
+
 	/**
 	 * Call rest method.
 	 *
@@ -367,38 +470,36 @@ public class RestHelper {
 	 */
 	public static int callRestMethod(final CloseableHttpClient client, RestMethod methodType, final String uri)
 			throws IOException, URISyntaxException {
-		URI url = new URI(uri);
-		HttpRequestBase method = methodType.getMethod();
-		method.setURI(url);
-		return getResponseCode(client, method);
+		return getResponseCode(client, methodType.newRequest(new URI(uri)));
 	}
 
 	/**
-	 * Call rest method.
+	 * Call rest method. The content is sent by the methods having a body (POST,
+	 * PUT, PATCH).
 	 *
 	 * @param client      the client
 	 * @param methodType  the method type
 	 * @param uri         the uri
-	 * @param contentType the content type
-	 * @param content     the content
-	 * @param headers     the headers
-	 * @return the int
+	 * @param contentType the content type, default is json
+	 * @param content     the content, optional
+	 * @param headers     the headers, optional
+	 * @return the closeable http response
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
 	public static CloseableHttpResponse callRestMethod(CloseableHttpClient client, RestMethod methodType, String uri,
 			ContentType contentType, String content, List<NameValuePair> headers) throws IOException {
-		switch (methodType.name()) {
-		case "GET":
-			return doHttpGet(client, uri, headers);
-		case "PUT":
-			return doHttpPut(client, uri, headers);
-		case "POST":
-			return doHttpPost(client, uri, contentType, content, headers);
-		case "DELETE":
-			return doHttpDelete(client, uri, headers);
-		default:
-			return null;
+		HttpRequestBase httpMethod = methodType.newRequest(uri);
+		if (content != null && httpMethod instanceof HttpEntityEnclosingRequestBase) {
+			((HttpEntityEnclosingRequestBase) httpMethod).setEntity(new ByteArrayEntity(
+					content.getBytes(StandardCharsets.UTF_8),
+					contentType == null ? ContentType.APPLICATION_JSON : contentType));
 		}
+		if (headers != null) {
+			for (NameValuePair header : headers) {
+				httpMethod.addHeader(header.getName(), header.getValue());
+			}
+		}
+		return RestResponseCache.execute(client, httpMethod);
 	}
 
 	/**
@@ -411,8 +512,7 @@ public class RestHelper {
 	 */
 	public static int callRestMethod(RestMethod methodType, final String uri) throws IOException {
 		int responseCode;
-		try {
-			CloseableHttpClient client = RestHelper.buildHttpClient(null, new BasicCookieStore());
+		try (CloseableHttpClient client = RestHelper.buildHttpClient(null, new BasicCookieStore())) {
 			responseCode = callRestMethod(client, methodType, uri);
 		} catch (KeyManagementException | NoSuchAlgorithmException | KeyStoreException | URISyntaxException
 				| IOException e) {
@@ -422,35 +522,90 @@ public class RestHelper {
 	}
 
 	/**
-	 * Call rest method.
+	 * Executes a request and returns a response handle, the caller has to close
+	 * it. Request and response headers are logged, the body is logged when it
+	 * is read buffered.
+	 *
+	 * @param client  the client
+	 * @param request the request
+	 * @return the rest response
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static RestResponse execute(final CloseableHttpClient client, final HttpRequestBase request)
+			throws IOException {
+		log.info(() -> "### REQUEST: " + request.getMethod());
+		// log request
+		log.info(() -> "request content: " + getRequestContent(request));
+		for (Header header : request.getAllHeaders()) {
+			log.info(() -> "request Header: " + header);
+		}
+		RestResponse response = new RestResponse(RestResponseCache.execute(client, request));
+		// log response
+		log.info(() -> "### RESPONSE: " + response.getStatusCode());
+		for (Header header : response.getHeaders()) {
+			log.info(() -> "response Header: " + header);
+		}
+		return response;
+	}
+
+	/**
+	 * Executes a request with the shared client and returns a response handle,
+	 * the caller has to close it.
+	 *
+	 * @param request the request
+	 * @return the rest response
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static RestResponse execute(final HttpRequestBase request) throws IOException {
+		return execute(httpclient, request);
+	}
+
+	/**
+	 * Call rest method. The content is buffered, stored in the system property
+	 * {@link #CONTENT} and set again as entity of the returned response.
 	 *
 	 * @param httpclient the httpclient
 	 * @param method     the method
 	 * @return the closeable http response
 	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @deprecated the system property is shared by all threads, use
+	 *             {@link #execute(CloseableHttpClient, HttpRequestBase)}
 	 */
+	@Deprecated
 	public static CloseableHttpResponse callRestMethod(final CloseableHttpClient httpclient,
 			final HttpRequestBase method) throws IOException {
-		log.info(() -> "### REQUEST: " + method.getMethod());
-		// log request
-		log.info(() -> "request content: " + getRequestContent(method));
-		Header[] allHeaders = method.getAllHeaders();
-		for (Header header : allHeaders) {
-			log.info(() -> "request Header: " + header);
+		RestResponse response = execute(httpclient, method);
+		byte[] body = response.getBody();
+		System.setProperty(CONTENT, new String(body, response.getCharset()));
+		CloseableHttpResponse httpResponse = response.getResponse();
+		if (httpResponse.getEntity() != null) {
+			httpResponse.setEntity(new ByteArrayEntity(body, response.getContentType()));
 		}
+		return httpResponse;
+	}
 
-		CloseableHttpResponse response = httpclient.execute(method);
-		String responseContent = getResponseContent(response);
-		System.setProperty(CONTENT, responseContent);
-
-		allHeaders = response.getAllHeaders();
-		// log response
-		log.info(() -> "### RESPONSE: ");
-		for (Header header : allHeaders) {
-			log.info(() -> "response Header: " + header);
+	/**
+	 * Executes a request with the shared client and gets the status code. The
+	 * response is consumed, so the connection goes back to the pool.
+	 *
+	 * @param request the request
+	 * @return the status code
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static int getStatusCode(HttpRequestBase request) throws IOException {
+		try (CloseableHttpResponse response = RestResponseCache.execute(httpclient, request)) {
+			EntityUtils.consumeQuietly(response.getEntity());
+			return response.getStatusLine().getStatusCode();
 		}
-		log.info(() -> "response content: " + responseContent);
-		return response;
+	}
+
+	/**
+	 * Gets the pool statistics of the shared connection managers.
+	 *
+	 * @return the pool statistics
+	 */
+	public static String getPoolStats() {
+		return RestConnectionPool.getStats();
 	}
 
 	/**
@@ -492,23 +647,21 @@ public class RestHelper {
 	 * @return the entity content
 	 */
 	private static String getEntityContent(HttpEntity entity) {
-		StringBuilder content = new StringBuilder();
 		if (entity == null) {
 			return "";
 		}
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader(entity.getContent()))) {
-			String line;
-			while (((line = reader.readLine()) != null)) {
-				content.append(line).append(System.lineSeparator());
-			}
+		try {
+			return EntityUtils.toString(entity, StandardCharsets.UTF_8);
 		} catch (IOException ex) {
 			log.info(() -> "getResponseContent failed with message: " + ex.getMessage());
+			return "";
 		}
-		return content.toString();
 	}
 
 	/**
-	 * Gets the response code of rest call.
+	 * Gets the response code of rest call. As before, the content is stored in
+	 * the system property {@link #CONTENT}, as callers of the callRestMethod
+	 * overloads returning the status code read it from there.
 	 *
 	 * @param httpclient the httpclient
 	 * @param method     the method
@@ -517,17 +670,12 @@ public class RestHelper {
 	 */
 	public static int getResponseCode(final CloseableHttpClient httpclient, final HttpRequestBase method)
 			throws IOException {
-		CloseableHttpResponse response = null;
 		int statusCode = -1;
-		try {
-			response = callRestMethod(httpclient, method);
-			statusCode = response.getStatusLine().getStatusCode();
+		try (RestResponse response = execute(httpclient, method)) {
+			statusCode = response.getStatusCode();
+			System.setProperty(CONTENT, response.getBodyAsString());
 		} catch (IOException ex) {
 			log.info(() -> "getResponseCode failed with message: " + ex.getMessage());
-		} finally {
-			if (response != null) {
-				response.close();
-			}
 		}
 		return statusCode;
 	}
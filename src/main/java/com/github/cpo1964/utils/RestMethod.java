@@ -12,56 +12,90 @@
  */
 package com.github.cpo1964.utils;
 
+import java.net.URI;
+import java.util.function.Supplier;
+
+import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpOptions;
+import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 
 /**
  * The Enum RestMethod.
+ * <p>
+ * A factory of requests, every call creates a new request object, so the
+ * constants can be used by parallel tests.
  */
 public enum RestMethod {
 
 	/** The get. */
-	GET(new HttpGet()),
+	GET(HttpGet::new),
 
 	/** The put. */
-	PUT(new HttpPut()),
+	PUT(HttpPut::new),
 
 	/** The post. */
-	POST(new HttpPost()),
+	POST(HttpPost::new),
 
 	/** The delete. */
-	DELETE(new HttpPost());
+	DELETE(HttpDelete::new),
+
+	/** The patch. */
+	PATCH(HttpPatch::new),
+
+	/** The head. */
+	HEAD(HttpHead::new),
+
+	/** The options. */
+	OPTIONS(HttpOptions::new);
 
-	/** The method. */
-	private HttpRequestBase method;
+	/** The request factory. */
+	private final Supplier<HttpRequestBase> factory;
 
 	/**
 	 * Instantiates a new rest method.
 	 *
-	 * @param method the method
+	 * @param factory the request factory
 	 */
-	RestMethod(HttpRequestBase method) {
-		this.method = method;
+	RestMethod(Supplier<HttpRequestBase> factory) {
+		this.factory = factory;
 	}
 
 	/**
-	 * Gets the method.
+	 * Creates a new request.
 	 *
-	 * @return the method
+	 * @param uri the uri
+	 * @return the request
 	 */
-	public HttpRequestBase getMethod() {
-		return method;
+	public HttpRequestBase newRequest(URI uri) {
+		HttpRequestBase request = factory.get();
+		request.setURI(uri);
+		return request;
 	}
 
 	/**
-	 * Sets the method.
+	 * Creates a new request.
 	 *
-	 * @param method the new method
+	 * @param uri the uri
+	 * @return the request
 	 */
-	protected void setMethod(HttpRequestBase method) {
-		this.method = method;
+	public HttpRequestBase newRequest(String uri) {
+		return newRequest(URI.create(uri));
+	}
+
+	/**
+	 * Gets the method.
+	 *
+	 * @return a new request without uri
+	 * @deprecated use {@link #newRequest(URI)}
+	 */
+	@Deprecated
+	public HttpRequestBase getMethod() {
+		return factory.get();
 	}
 
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * The Class RestResponse.
+ * <p>
+ * The response of a {@link RestHelper#execute} call. The body is either read
+ * once as stream by {@link #getBodyStream()}, e.g. for large exports, or
+ * buffered by {@link #getBody()} and the methods built on it. Text is decoded
+ * with the charset of the content type (UTF-8 if none is declared).
+ * <p>
+ * When a buffered body is read, the first 'rest.log.maxBytes' bytes (default
+ * 4096) are logged. The response must be closed to give the connection back.
+ */
+public final class RestResponse implements Closeable {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(RestResponse.class.getSimpleName());
+
+	/** The max bytes of a logged body. */
+	private static final int LOG_MAX_BYTES = Integer.getInteger("rest.log.maxBytes", 4096);
+
+	/** The response. */
+	private final CloseableHttpResponse response;
+
+	/** The buffered body. */
+	private byte[] body;
+
+	/** The stream has been handed out. */
+	private boolean streamed;
+
+	/**
+	 * Instantiates a new rest response.
+	 *
+	 * @param response the response
+	 */
+	RestResponse(CloseableHttpResponse response) {
+		this.response = response;
+	}
+
+	/**
+	 * Gets the status code.
+	 *
+	 * @return the status code
+	 */
+	public int getStatusCode() {
+		return response.getStatusLine().getStatusCode();
+	}
+
+	/**
+	 * Gets the headers.
+	 *
+	 * @return the headers
+	 */
+	public Header[] getHeaders() {
+		return response.getAllHeaders();
+	}
+
+	/**
+	 * Gets the first value of a header.
+	 *
+	 * @param name the name
+	 * @return the value or null
+	 */
+	public String getHeader(String name) {
+		Header header = response.getFirstHeader(name);
+		return header == null ? null : header.getValue();
+	}
+
+	/**
+	 * Gets the content type.
+	 *
+	 * @return the content type or null
+	 */
+	public ContentType getContentType() {
+		HttpEntity entity = response.getEntity();
+		return entity == null ? null : ContentType.get(entity);
+	}
+
+	/**
+	 * Gets the charset of the body.
+	 *
+	 * @return the declared charset or UTF-8
+	 */
+	public Charset getCharset() {
+		ContentType contentType = getContentType();
+		if (contentType == null || contentType.getCharset() == null) {
+			return StandardCharsets.UTF_8;
+		}
+		return contentType.getCharset();
+	}
+
+	/**
+	 * Gets the body as stream, without buffering it.
+	 *
+	 * @return the body stream
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public InputStream getBodyStream() throws IOException {
+		if (body != null) {
+			return new ByteArrayInputStream(body);
+		}
+		HttpEntity entity = response.getEntity();
+		if (entity == null) {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+		streamed = true;
+		return entity.getContent();
+	}
+
+	/**
+	 * Gets the body, it is read and buffered on the first call.
+	 *
+	 * @return the body
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public byte[] getBody() throws IOException {
+		if (body == null) {
+			if (streamed) {
+				throw new IllegalStateException("the body has already been read as stream");
+			}
+			HttpEntity entity = response.getEntity();
+			body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+			log.info(() -> "response content: " + preview());
+		}
+		return body;
+	}
+
+	/**
+	 * Gets the body as read only byte buffer.
+	 *
+	 * @return the body buffer
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public ByteBuffer getBodyBuffer() throws IOException {
+		return ByteBuffer.wrap(getBody()).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Gets the body as text.
+	 *
+	 * @return the body decoded with the charset of the content type
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public String getBodyAsString() throws IOException {
+		return new String(getBody(), getCharset());
+	}
+
+	/**
+	 * Gets the underlying response.
+	 *
+	 * @return the response
+	 */
+	public CloseableHttpResponse getResponse() {
+		return response;
+	}
+
+	/**
+	 * Closes the response, an unread body is discarded.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (body == null && !streamed) {
+				EntityUtils.consumeQuietly(response.getEntity());
+			}
+		} finally {
+			response.close();
+		}
+	}
+
+	/**
+	 * Gets the start of the buffered body for the log.
+	 *
+	 * @return the preview
+	 */
+	private String preview() {
+		int len = Math.min(body.length, Math.max(0, LOG_MAX_BYTES));
+		String text = new String(body, 0, len, getCharset());
+		return len < body.length ? text + " ... (" + body.length + " bytes)" : text;
+	}
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * The Class RestResponseCache.
+ * <p>
+ * An in-memory cache of GET responses for the {@link RestHelper}, switched on
+ * by the system property 'rest.cache=true' or {@link #setEnabled(boolean)}.
+ * <p>
+ * Only '200' responses with a 'max-age', 'Expires', 'ETag' or 'Last-Modified'
+ * are stored, 'no-store', 'private', 'Vary: *' and 'Vary: Cookie' responses
+ * and requests with 'Authorization' are never stored. A fresh entry is served
+ * without a call, a stale entry (or one with 'no-cache') is revalidated with
+ * 'If-None-Match' / 'If-Modified-Since' and served again on '304'.
+ * <p>
+ * Entries are keyed by the client, as its cookies, proxy and trust mode are not
+ * part of the request, the uri, the request headers and the request values of
+ * the headers named by 'Vary'. They are evicted least recently used first,
+ * when 'rest.cache.maxEntries' (default 256) or 'rest.cache.maxBytes' (default
+ * 16 MB) is exceeded.
+ */
+public class RestResponseCache {
+
+	/** The logger. */
+	static final Logger log = Logger.getLogger(RestResponseCache.class.getSimpleName());
+
+	/** The max entries. */
+	private static final int MAX_ENTRIES = Integer.getInteger("rest.cache.maxEntries", 256);
+
+	/** The max bytes. */
+	private static final long MAX_BYTES = Long.getLong("rest.cache.maxBytes", 16L * 1024 * 1024);
+
+	/** The enabled flag. */
+	private static volatile boolean enabled = Boolean.getBoolean("rest.cache");
+
+	/** The entries in access order. */
+	private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<>(64, 0.75f, true);
+
+	/** The 'Vary' header names of the last stored response, by client and uri. */
+	private static final Map<String, String[]> VARY = new HashMap<>();
+
+	/** The ids of the clients, never reused. */
+	private static final Map<CloseableHttpClient, Long> CLIENTS = new WeakHashMap<>();
+
+	/** The last client id. */
+	private static long clientIds;
+
+	/** The cached bytes. */
+	private static long bytes;
+
+	/** The hits. */
+	private static final LongAdder hits = new LongAdder();
+
+	/** The misses. */
+	private static final LongAdder misses = new LongAdder();
+
+	/** The revalidations answered by '304'. */
+	private static final LongAdder revalidations = new LongAdder();
+
+	/** The evictions. */
+	private static final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Instantiates a new rest response cache.
+	 */
+	private RestResponseCache() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Checks if the cache is enabled.
+	 *
+	 * @return true, if enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Switches the cache on or off, switching off clears it.
+	 *
+	 * @param on true to switch on
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+		if (!on) {
+			clear();
+		}
+	}
+
+	/**
+	 * Clears the cache.
+	 */
+	public static synchronized void clear() {
+		ENTRIES.clear();
+		VARY.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Gets the statistics.
+	 *
+	 * @return the statistics
+	 */
+	public static synchronized String getStats() {
+		return "RestResponseCache[entries=" + ENTRIES.size() + ", bytes=" + bytes + ", hits=" + hits.sum()
+				+ ", misses=" + misses.sum() + ", revalidations=" + revalidations.sum() + ", evictions="
+				+ evictions.sum() + "]";
+	}
+
+	/**
+	 * Gets the hits, including the revalidated ones.
+	 *
+	 * @return the hits
+	 */
+	public static long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the misses.
+	 *
+	 * @return the misses
+	 */
+	public static long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the revalidations answered by '304'.
+	 *
+	 * @return the revalidations
+	 */
+	public static long getRevalidations() {
+		return revalidations.sum();
+	}
+
+	/**
+	 * Executes a request, GET requests through the cache if it is enabled.
+	 *
+	 * @param client  the client
+	 * @param request the request
+	 * @return the response, a buffered copy if it comes from or went into the
+	 *         cache
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static CloseableHttpResponse execute(CloseableHttpClient client, HttpRequestBase request) throws IOException {
+		if (!enabled || !HttpGet.METHOD_NAME.equals(request.getMethod())
+				|| directiveOf(request.getHeaders("Cache-Control"), "no-store") != null
+				|| request.containsHeader("Authorization")) {
+			return client.execute(request);
+		}
+		String base = baseOf(client, request);
+		String key = keyOf(base, varyOf(base), request);
+		Entry entry = get(key);
+		long now = System.currentTimeMillis();
+		if (entry != null && now < entry.expires) {
+			hits.increment();
+			return entry.toResponse();
+		}
+		if (entry != null) {
+			if (entry.etag != null) {
+				request.setHeader("If-None-Match", entry.etag);
+			}
+			if (entry.lastModified != null) {
+				request.setHeader("If-Modified-Since", entry.lastModified);
+			}
+		}
+		CloseableHttpResponse response = client.execute(request);
+		int status = response.getStatusLine().getStatusCode();
+		if (entry != null && status == HttpStatus.SC_NOT_MODIFIED) {
+			try {
+				EntityUtils.consume(response.getEntity());
+			} finally {
+				response.close();
+			}
+			hits.increment();
+			revalidations.increment();
+			entry.expires = expiresOf(response, now);
+			return entry.toResponse();
+		}
+		misses.increment();
+		String[] vary = varyNames(response);
+		if (status != HttpStatus.SC_OK || directiveOf(response.getHeaders("Cache-Control"), "no-store") != null
+				|| directiveOf(response.getHeaders("Cache-Control"), "private") != null || vary == null) {
+			remove(key);
+			return response;
+		}
+		Entry fresh = Entry.of(response, now);
+		if (fresh == null) {
+			remove(key);
+			return response;
+		}
+		put(base, vary, keyOf(base, vary, request), fresh);
+		return fresh.toResponse();
+	}
+
+	/**
+	 * Gets an entry.
+	 *
+	 * @param key the key
+	 * @return the entry
+	 */
+	private static synchronized Entry get(String key) {
+		return ENTRIES.get(key);
+	}
+
+	/**
+	 * Removes an entry.
+	 *
+	 * @param key the key
+	 */
+	private static synchronized void remove(String key) {
+		Entry old = ENTRIES.remove(key);
+		if (old != null) {
+			bytes -= old.body.length;
+		}
+	}
+
+	/**
+	 * Gets the 'Vary' header names of the last stored response.
+	 *
+	 * @param base the key of client and uri
+	 * @return the names, empty if none
+	 */
+	private static synchronized String[] varyOf(String base) {
+		String[] vary = VARY.get(base);
+		return vary == null ? new String[0] : vary;
+	}
+
+	/**
+	 * Puts an entry and evicts the least recently used entries over the limits.
+	 *
+	 * @param base  the key of client and uri
+	 * @param vary  the 'Vary' header names of the response
+	 * @param key   the key
+	 * @param entry the entry
+	 */
+	private static synchronized void put(String base, String[] vary, String key, Entry entry) {
+		if (entry.body.length > MAX_BYTES) {
+			remove(key);
+			return;
+		}
+		VARY.put(base, vary);
+		Entry old = ENTRIES.put(key, entry);
+		bytes += entry.body.length - (old == null ? 0 : old.body.length);
+		Iterator<Entry> it = ENTRIES.values().iterator();
+		while ((ENTRIES.size() > MAX_ENTRIES || bytes > MAX_BYTES) && it.hasNext()) {
+			bytes -= it.next().body.length;
+			it.remove();
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Builds the key of client and uri.
+	 *
+	 * @param client  the client
+	 * @param request the request
+	 * @return the key
+	 */
+	private static String baseOf(CloseableHttpClient client, HttpRequestBase request) {
+		long id;
+		synchronized (RestResponseCache.class) {
+			id = CLIENTS.computeIfAbsent(client, c -> ++clientIds);
+		}
+		return id + " " + request.getURI();
+	}
+
+	/**
+	 * Gets the 'Vary' header names of a response.
+	 *
+	 * @param response the response
+	 * @return the names in lower case and sorted, null if the response must not
+	 *         be stored ('*' or 'Cookie')
+	 */
+	private static String[] varyNames(CloseableHttpResponse response) {
+		TreeSet<String> names = new TreeSet<>();
+		for (Header header : response.getHeaders("Vary")) {
+			for (HeaderElement element : header.getElements()) {
+				String name = element.getName().trim().toLowerCase();
+				if ("*".equals(name) || "cookie".equals(name)) {
+					return null;
+				}
+				if (!name.isEmpty()) {
+					names.add(name);
+				}
+			}
+		}
+		return names.toArray(new String[0]);
+	}
+
+	/**
+	 * Builds the key of a request from client and uri, the request headers and
+	 * the values of the 'Vary' headers.
+	 *
+	 * @param base    the key of client and uri
+	 * @param vary    the 'Vary' header names
+	 * @param request the request
+	 * @return the key
+	 */
+	private static String keyOf(String base, String[] vary, HttpRequestBase request) {
+		StringBuilder key = new StringBuilder(base);
+		for (String name : vary) {
+			Header header = request.getFirstHeader(name);
+			key.append("\nvary ").append(name).append(':').append(header == null ? "" : header.getValue());
+		}
+		Header[] headers = request.getAllHeaders().clone();
+		Arrays.sort(headers, Comparator.comparing(Header::getName, String.CASE_INSENSITIVE_ORDER));
+		for (Header header : headers) {
+			if (!header.getName().startsWith("If-")) {
+				key.append('\n').append(header.getName().toLowerCase()).append(':').append(header.getValue());
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Computes the expiry of a response, 'no-cache' expires at once.
+	 *
+	 * @param response the response
+	 * @param now      the time of the request
+	 * @return the expiry in millis
+	 */
+	private static long expiresOf(CloseableHttpResponse response, long now) {
+		Header[] cacheControl = response.getHeaders("Cache-Control");
+		if (directiveOf(cacheControl, "no-cache") != null) {
+			return now;
+		}
+		HeaderElement maxAge = directiveOf(cacheControl, "max-age");
+		if (maxAge != null && maxAge.getValue() != null) {
+			try {
+				return now + TimeUnit.SECONDS.toMillis(Long.parseLong(maxAge.getValue().trim()));
+			} catch (NumberFormatException e) {
+				return now;
+			}
+		}
+		Header expires = response.getFirstHeader("Expires");
+		if (expires != null) {
+			Date date = DateUtils.parseDate(expires.getValue());
+			return date == null ? now : date.getTime();
+		}
+		return now;
+	}
+
+	/**
+	 * Finds a cache control directive.
+	 *
+	 * @param headers the cache control headers
+	 * @param name    the directive
+	 * @return the directive or null
+	 */
+	private static HeaderElement directiveOf(Header[] headers, String name) {
+		for (Header header : headers) {
+			for (HeaderElement element : header.getElements()) {
+				if (name.equalsIgnoreCase(element.getName())) {
+					return element;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A cached response.
+	 */
+	private static final class Entry {
+
+		/** The headers. */
+		private final Header[] headers;
+
+		/** The body. */
+		private final byte[] body;
+
+		/** The content type. */
+		private final ContentType contentType;
+
+		/** The etag. */
+		private final String etag;
+
+		/** The last modified. */
+		private final String lastModified;
+
+		/** The expiry. */
+		private volatile long expires;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param response the response
+		 * @param body     the body
+		 * @param expires  the expiry
+		 */
+		private Entry(CloseableHttpResponse response, byte[] body, long expires) {
+			HttpEntity entity = response.getEntity();
+			this.headers = response.getAllHeaders();
+			this.body = body;
+			this.contentType = entity == null ? null : ContentType.get(entity);
+			Header header = response.getFirstHeader("ETag");
+			this.etag = header == null ? null : header.getValue();
+			header = response.getFirstHeader("Last-Modified");
+			this.lastModified = header == null ? null : header.getValue();
+			this.expires = expires;
+		}
+
+		/**
+		 * Reads a response into an entry, if it can be cached.
+		 *
+		 * @param response the response, closed afterwards if cacheable
+		 * @param now      the time of the request
+		 * @return the entry or null, if the response can not be revalidated and
+		 *         has no freshness
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		static Entry of(CloseableHttpResponse response, long now) throws IOException {
+			long expires = expiresOf(response, now);
+			if (expires <= now && response.getFirstHeader("ETag") == null
+					&& response.getFirstHeader("Last-Modified") == null) {
+				return null;
+			}
+			try {
+				HttpEntity entity = response.getEntity();
+				byte[] body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+				return new Entry(response, body, expires);
+			} finally {
+				response.close();
+			}
+		}
+
+		/**
+		 * Creates a response from the entry.
+		 *
+		 * @return the response
+		 */
+		CloseableHttpResponse toResponse() {
+			CachedResponse response = new CachedResponse();
+			response.setHeaders(headers);
+			response.setEntity(new ByteArrayEntity(body, contentType));
+			return response;
+		}
+	}
+
+	/**
+	 * A response served from the cache, closing it has no effect.
+	 */
+	private static final class CachedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+		/**
+		 * Instantiates a new cached response.
+		 */
+		CachedResponse() {
+			super(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		}
+
+		@Override
+		public void close() {
+			// nothing to release
+		}
+	}
+}
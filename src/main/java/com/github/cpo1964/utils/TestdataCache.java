@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The Class TestdataCache.
+ * <p>
+ * Keeps the parsed rows of a testdata sheet in a binary file, so the workbook
+ * is only parsed again when it has changed. An entry is keyed by the canonical
+ * path of the workbook, the sheet name and the modification time and size of
+ * the workbook.
+ * <p>
+ * The entries are stored column by column and read through a memory mapped
+ * buffer. Every value is stored as int length followed by its UTF-8 bytes, -1
+ * marks a null value.
+ * <p>
+ * The cache directory is set by the system property 'testdata.cache.dir'
+ * (default: 'selenium-lib-testdata' in the temp directory), the cache is
+ * switched off by '-Dtestdata.cache=false'.
+ */
+public class TestdataCache {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = Logger.getLogger(TestdataCache.class.getSimpleName());
+
+	/** The magic number of a cache file. */
+	private static final int MAGIC = 0x54444331;
+
+	/** The file extension. */
+	private static final String EXTENSION = ".tdc";
+
+	/** The enabled flag. */
+	private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("testdata.cache"));
+
+	/** The cache directory. */
+	private static final Path DIR = Paths.get(System.getProperty("testdata.cache.dir",
+			System.getProperty("java.io.tmpdir") + File.separator + "selenium-lib-testdata"));
+
+	/**
+	 * Instantiates a new testdata cache.
+	 */
+	private TestdataCache() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Gets the rows of a sheet, from the cache if the workbook is unchanged.
+	 *
+	 * @param file      the file
+	 * @param sheetName the sheet name
+	 * @return the data
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static List<Object[]> getData(File file, String sheetName) throws IOException {
+		if (!ENABLED || !file.exists()) {
+			return new ExcelHelper(file, sheetName).getData();
+		}
+		MaxlevelStreamHandler.setupMaxLevelStreamHandler(LOGGER);
+		String source = file.getCanonicalPath() + "|" + sheetName;
+		String key = source + "|" + file.lastModified() + "|" + file.length();
+		String prefix = hash(source);
+		Path entry = DIR.resolve(prefix + "-" + hash(key) + EXTENSION);
+		if (Files.exists(entry)) {
+			try {
+				List<Object[]> data = read(entry, key);
+				if (data != null) {
+					LOGGER.info(() -> "Benutze folgende Testdaten (Cache):\n" + source.replace("|", " / Sheet: "));
+					return data;
+				}
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warning(() -> "testdata cache entry '" + entry + "' is unreadable: " + e.getMessage());
+			}
+		}
+		List<Object[]> data = new ExcelHelper(file, sheetName).getData();
+		try {
+			write(entry, prefix, key, data);
+		} catch (IOException e) {
+			LOGGER.warning(() -> "writing the testdata cache entry '" + entry + "' failed: " + e.getMessage());
+		}
+		return data;
+	}
+
+	/**
+	 * Deletes all cache entries.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void clear() throws IOException {
+		if (Files.isDirectory(DIR)) {
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(DIR, "*" + EXTENSION)) {
+				for (Path p : entries) {
+					Files.deleteIfExists(p);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a cache entry.
+	 *
+	 * @param entry the entry
+	 * @param key   the key
+	 * @return the data or null, if the entry belongs to another key
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static List<Object[]> read(Path entry, String key) throws IOException {
+		MappedByteBuffer buf;
+		try (FileChannel ch = FileChannel.open(entry, StandardOpenOption.READ)) {
+			buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		}
+		try {
+			if (buf.getInt() != MAGIC || !key.equals(readString(buf))) {
+				return null;
+			}
+			int rowCount = buf.getInt();
+			int columnCount = buf.getInt();
+			List<Object[]> rows = new ArrayList<>(rowCount);
+			for (int row = 0; row < rowCount; row++) {
+				rows.add(new Object[columnCount]);
+			}
+			for (int column = 0; column < columnCount; column++) {
+				for (int row = 0; row < rowCount; row++) {
+					rows.get(row)[column] = readString(buf);
+				}
+			}
+			return rows;
+		} catch (BufferUnderflowException e) {
+			throw new IOException("truncated", e);
+		}
+	}
+
+	/**
+	 * Writes a cache entry atomically and deletes the entries of older versions
+	 * of the sheet.
+	 *
+	 * @param entry  the entry
+	 * @param prefix the prefix of all entries of the sheet
+	 * @param key    the key
+	 * @param rows   the rows
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void write(Path entry, String prefix, String key, List<Object[]> rows) throws IOException {
+		Files.createDirectories(DIR);
+		int columnCount = rows.isEmpty() ? 0 : rows.get(0).length;
+		Path tmp = Files.createTempFile(DIR, prefix, ".tmp");
+		try {
+			try (OutputStream os = Files.newOutputStream(tmp);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+				out.writeInt(MAGIC);
+				writeString(out, key);
+				out.writeInt(rows.size());
+				out.writeInt(columnCount);
+				for (int column = 0; column < columnCount; column++) {
+					for (Object[] row : rows) {
+						writeString(out, row[column] == null ? null : row[column].toString());
+					}
+				}
+			}
+			Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+		try (DirectoryStream<Path> stale = Files.newDirectoryStream(DIR, prefix + "-*" + EXTENSION)) {
+			for (Path p : stale) {
+				if (!p.equals(entry)) {
+					Files.deleteIfExists(p);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.fine(() -> "deleting stale testdata cache entries failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads a string.
+	 *
+	 * @param buf the buf
+	 * @return the string
+	 */
+	private static String readString(MappedByteBuffer buf) {
+		int len = buf.getInt();
+		if (len < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[len];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a string.
+	 *
+	 * @param out   the out
+	 * @param value the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Hashes a string to a file name part.
+	 *
+	 * @param value the value
+	 * @return the hex string
+	 */
+	private static String hash(String value) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest, 0, 12);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
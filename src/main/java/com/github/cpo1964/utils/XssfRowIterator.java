@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+/**
+ * The Class XssfRowIterator.
+ * <p>
+ * Streams the rows of a '.xlsx' sheet with StAX, only the shared strings and
+ * the styles are kept in memory. Formula cells deliver the value cached by
+ * Excel, so no evaluator is needed.
+ */
+class XssfRowIterator extends ExcelRowIterator {
+
+	/** The package. */
+	private final OPCPackage pkg;
+
+	/** The shared strings. */
+	private final ReadOnlySharedStringsTable strings;
+
+	/** The styles. */
+	private final StylesTable styles;
+
+	/** The date format flags by style index. */
+	private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+	/** The sheet stream. */
+	private final InputStream sheet;
+
+	/** The xml reader. */
+	private final XMLStreamReader xml;
+
+	/**
+	 * Instantiates a new xssf row iterator.
+	 *
+	 * @param file      the file
+	 * @param sheetName the sheet name
+	 * @param columns   the columns
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	XssfRowIterator(File file, String sheetName, String... columns) throws IOException {
+		super(columns);
+		try {
+			pkg = OPCPackage.open(file, PackageAccess.READ);
+		} catch (OpenXML4JException e) {
+			throw new IOException(e);
+		}
+		try {
+			XSSFReader reader = new XSSFReader(pkg);
+			strings = new ReadOnlySharedStringsTable(pkg);
+			styles = reader.getStylesTable();
+			sheet = findSheet(reader, sheetName);
+			if (sheet == null) {
+				throw new IOException("Sheet '" + sheetName + "' not found in " + file.getPath());
+			}
+			XMLInputFactory factory = XMLInputFactory.newFactory();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+			xml = factory.createXMLStreamReader(sheet);
+		} catch (IOException e) {
+			pkg.revert();
+			throw e;
+		} catch (OpenXML4JException | SAXException | XMLStreamException e) {
+			pkg.revert();
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Finds the stream of a sheet by name.
+	 *
+	 * @param reader    the reader
+	 * @param sheetName the sheet name
+	 * @return the sheet stream or null
+	 * @throws IOException          Signals that an I/O exception has occurred.
+	 * @throws OpenXML4JException the open XML 4 J exception
+	 */
+	private static InputStream findSheet(XSSFReader reader, String sheetName) throws IOException, OpenXML4JException {
+		XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) reader.getSheetsData();
+		while (it.hasNext()) {
+			InputStream in = it.next();
+			if (sheetName.equals(it.getSheetName())) {
+				return in;
+			}
+			in.close();
+		}
+		return null;
+	}
+
+	@Override
+	protected List<String> readHeader() throws IOException {
+		List<String> header = new ArrayList<>();
+		Map<Integer, Object> row = nextRow();
+		if (row != null) {
+			for (int col = 0; row.get(col) != null; col++) {
+				header.add((String) row.get(col));
+			}
+		}
+		return header;
+	}
+
+	@Override
+	protected Object[] readRow(int width) throws IOException {
+		Map<Integer, Object> row = nextRow();
+		if (row == null || row.get(0) == null) {
+			return null;
+		}
+		Object[] rowData = new Object[width];
+		for (int column = 0; column < width; ++column) {
+			// missing cells are empty strings, blank cells are null (as by the HSSF reader)
+			rowData[column] = row.containsKey(column) ? row.get(column) : "";
+		}
+		return rowData;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			xml.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			sheet.close();
+			pkg.revert();
+		}
+	}
+
+	/**
+	 * Reads the next row element.
+	 *
+	 * @return the cell values by column index or null at the end of the sheet
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private Map<Integer, Object> nextRow() throws IOException {
+		try {
+			while (xml.hasNext()) {
+				if (xml.next() == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+					return readCells();
+				}
+			}
+			return null;
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads the cells of the current row element.
+	 *
+	 * @return the cell values by column index
+	 * @throws XMLStreamException the XML stream exception
+	 */
+	private Map<Integer, Object> readCells() throws XMLStreamException {
+		Map<Integer, Object> cells = new HashMap<>();
+		int column = -1;
+		while (xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+				break;
+			}
+			if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+				String ref = xml.getAttributeValue(null, "r");
+				column = ref == null ? column + 1 : new CellReference(ref).getCol();
+				String type = xml.getAttributeValue(null, "t");
+				String style = xml.getAttributeValue(null, "s");
+				cells.put(column, readCell(type, style));
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Reads the current cell element and converts its value to a string.
+	 *
+	 * @param type  the cell type
+	 * @param style the style index
+	 * @return the value, null for blank cells
+	 * @throws XMLStreamException the XML stream exception
+	 */
+	private String readCell(String type, String style) throws XMLStreamException {
+		String value = null;
+		boolean formula = false;
+		StringBuilder inline = null;
+		while (xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+				break;
+			}
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = xml.getLocalName();
+				if ("v".equals(name)) {
+					value = xml.getElementText();
+				} else if ("f".equals(name)) {
+					formula = true;
+				} else if ("t".equals(name)) {
+					inline = inline == null ? new StringBuilder() : inline;
+					inline.append(xml.getElementText());
+				}
+			}
+		}
+		if ("inlineStr".equals(type)) {
+			return inline == null ? "" : inline.toString();
+		}
+		if (value == null) {
+			return null;
+		}
+		if ("s".equals(type)) {
+			return strings.getItemAt(Integer.parseInt(value)).getString();
+		} else if ("b".equals(type)) {
+			return Boolean.toString("1".equals(value));
+		} else if ("str".equals(type)) {
+			return value;
+		} else if ("e".equals(type)) {
+			return "" + null;
+		}
+		double number = Double.parseDouble(value);
+		if (!formula && style != null && isDateStyle(Integer.parseInt(style))) {
+			return "" + DateUtil.getJavaDate(number);
+		}
+		return "" + number;
+	}
+
+	/**
+	 * Checks if a style is a date format.
+	 *
+	 * @param index the style index
+	 * @return true, if a date format
+	 */
+	private boolean isDateStyle(int index) {
+		return dateStyles.computeIfAbsent(index, i -> {
+			XSSFCellStyle cellStyle = styles.getStyleAt(i);
+			return cellStyle != null && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+		});
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The Class ReportMessageBenchmark.
+ * <p>
+ * Compares {@link ReportMessage} with the former rendering by regular
+ * expressions and umlaut replacements. Not run by the tests, start it by its
+ * main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportMessageBenchmark {
+
+	/** The message. */
+	@Param({ "click: google.accept[button]", "<b>Test Grüße</b><br>Benutzer: müller<br>",
+			"# Actions ####################<br>waits: 3<br>clicks: 2<br>inputs: 1<br>outputs: 0<br>" })
+	public String msg;
+
+	/**
+	 * Renders by one scan.
+	 *
+	 * @param bh the blackhole
+	 */
+	@Benchmark
+	public void singlePass(Blackhole bh) {
+		ReportMessage rendered = ReportMessage.of(msg);
+		bh.consume(rendered.getHtml());
+		bh.consume(rendered.getPdf());
+	}
+
+	/**
+	 * Renders like formerly.
+	 *
+	 * @param bh the blackhole
+	 */
+	@Benchmark
+	public void legacy(Blackhole bh) {
+		bh.consume(ReportMessageTest.legacyUmlaute(msg));
+		bh.consume(ReportMessageTest.legacyUmlaute(ReportMessageTest.legacyPlain(msg)));
+	}
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the arguments
+	 * @throws RunnerException the runner exception
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ReportMessageBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2023 Christian Pöcksteiner (christian.poecksteiner@aon.at)
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cpo1964.report.extent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * The Class ReportMessageTest.
+ * <p>
+ * Compares {@link ReportMessage} with the former rendering by regular
+ * expressions and umlaut replacements. The only intended difference is a
+ * closing '&lt;/b&gt;', which the former regular expressions reduced to a stray
+ * '&lt;'.
+ */
+public class ReportMessageTest {
+
+	/** Realistic step messages. */
+	private static final String[] MESSAGES = { "navigate to https://www.google.com/",
+			"click: google.accept[button]", "input: google.search[textfield] - Selenium Java",
+			"output: result.count[text] = 1.234 Ergebnisse", "Überprüfung der Größe: Äpfel, Öl, Übermaß",
+			"validate: <b>login.user[text]</b> - expected: Jörg", "step 1<br>step 2<br>step 3",
+			"# Actions ####################<br>waits: 3<br>clicks: 2<br>inputs: 1<br>outputs: 0<br>",
+			"<b>Test Grüße</b><br>Benutzer: müller<br>", "wait on <b>page.header</b> (12 ms)",
+			"inputAll: 3 fields<br><b>login.password[textfield]</b> = *****", "", "ß" };
+
+	/**
+	 * The html variant encodes the umlauts like the former replaceUmlaute.
+	 */
+	@Test
+	public void testHtml() {
+		for (String msg : MESSAGES) {
+			assertEquals(msg, legacyUmlaute(msg), ReportMessage.of(msg).getHtml());
+		}
+	}
+
+	/**
+	 * The plain and pdf variants match the former regular expressions, with
+	 * closing tags removed completely.
+	 */
+	@Test
+	public void testPlainAndPdf() {
+		for (String msg : MESSAGES) {
+			// a closing tag is removed completely, like an opening one formerly
+			String expected = legacyPlain(msg.replace("</b>", "<b>"));
+			ReportMessage rendered = ReportMessage.of(msg);
+			assertEquals(msg, expected, rendered.getPlain());
+			assertEquals(msg, legacyUmlaute(expected), rendered.getPdf());
+		}
+	}
+
+	/**
+	 * Without closing tags the variants are the former ones.
+	 */
+	@Test
+	public void testWithoutClosingTagUnchanged() {
+		for (String msg : MESSAGES) {
+			if (!msg.contains("</b>")) {
+				assertEquals(msg, legacyPlain(msg), ReportMessage.of(msg).getPlain());
+				assertEquals(msg, legacyUmlaute(legacyPlain(msg)), ReportMessage.of(msg).getPdf());
+			}
+		}
+	}
+
+	/**
+	 * The stray '&lt;' of the former regular expressions is gone.
+	 */
+	@Test
+	public void testClosingTag() {
+		String nl = System.lineSeparator();
+		ReportMessage rendered = ReportMessage.of("<b>Grüße</b><br>Ende");
+		assertEquals("<b>Gr&uuml;&szlig;e</b><br>Ende", rendered.getHtml());
+		assertEquals("Grüße" + nl + "Ende", rendered.getPlain());
+		assertEquals("Gr&uuml;&szlig;e" + nl + "Ende", rendered.getPdf());
+		assertEquals("Grüße<" + nl + "Ende", legacyPlain("<b>Grüße</b><br>Ende"));
+	}
+
+	/**
+	 * A message without markup and umlauts is not copied.
+	 */
+	@Test
+	public void testNoMarkupNotCopied() {
+		String msg = "navigate to https://www.google.com/";
+		ReportMessage rendered = ReportMessage.of(msg);
+		assertSame(msg, rendered.getHtml());
+		assertSame(msg, rendered.getPlain());
+		assertSame(msg, rendered.getPdf());
+		assertSame(msg, ReportMessage.encodeUmlaute(msg));
+	}
+
+	/**
+	 * The former plain rendering.
+	 *
+	 * @param msg the msg
+	 * @return the plain msg
+	 */
+	static String legacyPlain(String msg) {
+		msg = msg.replaceAll("\\Wbr\\W", System.lineSeparator());
+		msg = msg.replaceAll("\\Wb\\W", "");
+		return msg.replaceAll("\\W/b\\W", "");
+	}
+
+	/**
+	 * The former replaceUmlaute.
+	 *
+	 * @param orig the orig
+	 * @return the encoded msg
+	 */
+	static String legacyUmlaute(String orig) {
+		String[][] replacements = { { "Ä", "&Auml;" }, { "Ü", "&Uuml;" }, { "Ö", "&Ouml;" }, { "ä", "&auml;" },
+				{ "ü", "&uuml;" }, { "ö", "&ouml;" }, { "ß", "&szlig;" } };
+		String result = orig;
+		for (String[] replacement : replacements) {
+			result = result.replace(replacement[0], replacement[1]);
+		}
+		return result;
+	}
+}